@@ -0,0 +1,37 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import main.World;
+
+/**
+ * A loaded level shared by the benchmarks of one thread: every real map plus
+ * the synthetic large ones (see {@link SyntheticMaps}). Real maps load from
+ * their compiled .bin files, the synthetic ones from text. Levels use a fixed
+ * seed so runs compare.
+ */
+@State(Scope.Thread)
+public class BenchLevel {
+    public static final long SEED = 42;
+
+    @Param({ "map01", "map02", "map03", "map04", "map05", "map06", "map07", "map08", "map09",
+            "synthetic-64", "synthetic-192" })
+    public String map;
+
+    public World world;
+
+    @Setup(Level.Trial)
+    public void load() {
+        Benchmarks.quiet();
+        world = new World(path(), SEED);
+    }
+
+    /** Classpath path of the map file. */
+    public String path() {
+        return map.startsWith("synthetic") ? "/Resource/bench/" + map + ".txt" : "/Resource/maps/" + map + ".txt";
+    }
+}
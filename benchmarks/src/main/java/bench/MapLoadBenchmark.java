@@ -0,0 +1,27 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** TileManager.loadMap: parsing or decoding the map and building the visibility table. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class MapLoadBenchmark {
+
+    @Benchmark
+    public int[][] loadMap(BenchLevel level) {
+        // resetAndLoadMap = clear the spawn lists + loadMap, as World.loadLevel does
+        level.world.tileM.resetAndLoadMap(level.path());
+        return level.world.tileM.mapCodes;
+    }
+}
@@ -0,0 +1,64 @@
+package bench;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import entity.EntityManager;
+import entity.PathFinder;
+import entity.PlayableCharacter;
+
+/**
+ * Movement rules for every character in all four directions per operation:
+ * the collision/push query alone, and a full move attempt.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class MovementBenchmark {
+
+    /** moveEntity changes targets (and may push or kill); start every iteration from the level start. */
+    @Setup(Level.Iteration)
+    public void restart(BenchLevel level) {
+        level.world.restartLevel();
+    }
+
+    @Benchmark
+    public void canMoveTo(BenchLevel level, Blackhole bh) {
+        EntityManager entityM = level.world.entityM;
+        int ts = level.world.tileSize;
+        ArrayList<PlayableCharacter> characters = entityM.characters;
+        for (int i = 0; i < characters.size(); i++) {
+            PlayableCharacter pc = characters.get(i);
+            int col = pc.x / ts, row = pc.y / ts;
+            for (int d = 0; d < 4; d++)
+                bh.consume(entityM.canMoveTo(pc, col + PathFinder.DX[d], row + PathFinder.DY[d]));
+        }
+    }
+
+    @Benchmark
+    public void moveEntity(BenchLevel level, Blackhole bh) {
+        EntityManager entityM = level.world.entityM;
+        ArrayList<PlayableCharacter> characters = entityM.characters;
+        for (int i = 0; i < characters.size(); i++) {
+            PlayableCharacter pc = characters.get(i);
+            for (int d = 0; d < 4; d++)
+                bh.consume(entityM.moveEntity(pc, PathFinder.DX[d], PathFinder.DY[d]));
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package bench;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import main.Camera;
+import main.RenderFrame;
+import main.World;
+
+/**
+ * Drawing one 768x576 frame into an offscreen image, with the camera on the
+ * active character: the entities alone (record the frame, then paint it) and
+ * the whole frame including the tile layer.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class RenderBenchmark {
+    static final int WIDTH = 768, HEIGHT = 576;
+
+    @State(Scope.Thread)
+    public static class Screen {
+        final BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        final RenderFrame frame = new RenderFrame();
+        final Camera camera = new Camera(WIDTH, HEIGHT);
+    }
+
+    @Benchmark
+    public BufferedImage drawEntities(BenchLevel level, Screen screen) {
+        Graphics2D g2 = record(level.world, screen);
+        screen.frame.paint(g2, 1f);
+        g2.dispose();
+        return screen.image;
+    }
+
+    @Benchmark
+    public BufferedImage drawFrame(BenchLevel level, Screen screen) {
+        World world = level.world;
+        Graphics2D g2 = record(world, screen);
+        world.tileM.draw(g2, screen.camera.x, screen.camera.y, WIDTH, HEIGHT);
+        screen.frame.paint(g2, 1f);
+        g2.dispose();
+        return screen.image;
+    }
+
+    /** Records the entity draw commands as GamePanel.publishFrame does; returns a graphics in world space. */
+    private static Graphics2D record(World world, Screen screen) {
+        int active = world.player.getActiveIndex();
+        Camera camera = screen.camera;
+        camera.follow(world.entityM.characters.get(active), world.maxWorldCol * world.tileSize,
+                world.maxWorldRow * world.tileSize);
+        RenderFrame frame = screen.frame;
+        frame.clear();
+        world.entityM.draw(frame, active, camera.x, camera.y, WIDTH, HEIGHT);
+
+        Graphics2D g2 = screen.image.createGraphics();
+        g2.translate(-camera.x, -camera.y);
+        return g2;
+    }
+}
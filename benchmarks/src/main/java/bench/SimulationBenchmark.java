@@ -0,0 +1,72 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import main.KeyHandler;
+import main.World;
+
+/**
+ * Per-tick simulation costs: the button/spike pass, the enemy phase on its
+ * own, and a whole tick as GamePanel runs it, driven by scripted input.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class SimulationBenchmark {
+
+    // held direction changes every 24 ticks (two tiles), with a character switch now and then
+    private static final int[] SCRIPT = { KeyHandler.RIGHT, KeyHandler.DOWN, KeyHandler.LEFT | KeyHandler.SWITCH,
+            KeyHandler.UP, KeyHandler.RIGHT, KeyHandler.UP | KeyHandler.SWITCH, KeyHandler.LEFT, KeyHandler.DOWN };
+
+    @State(Scope.Thread)
+    public static class Input {
+        int tick = 0;
+    }
+
+    /** Enemies chase and levels get lost over time; every iteration starts from the level start. */
+    @Setup(Level.Iteration)
+    public void restart(BenchLevel level) {
+        level.world.restartLevel();
+    }
+
+    @Benchmark
+    public void hazardUpdate(BenchLevel level) {
+        level.world.hazardM.update();
+    }
+
+    /** The enemy phase of EntityManager.update (advance, decide, commit). */
+    @Benchmark
+    public void enemyUpdate(BenchLevel level) {
+        level.world.entityM.updateEnemies();
+    }
+
+    /** What GamePanel.update does per tick, minus draining an empty input queue. */
+    @Benchmark
+    public int tick(BenchLevel level, Input input) {
+        World world = level.world;
+        int t = input.tick++;
+        int mask = SCRIPT[(t / 24) % SCRIPT.length];
+        if (t % 24 != 0)
+            mask &= ~KeyHandler.SWITCH; // switch is a tap
+        world.entityM.storePreviousPositions();
+        world.step(mask);
+        if (world.gameState != World.PLAY_STATE)
+            world.restartLevel();
+        return world.gameState;
+    }
+}
@@ -0,0 +1,84 @@
+package bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Writes the large synthetic levels used next to the real maps: a water
+ * border, scattered walls, the three characters in one corner, the key and
+ * chest far apart, and enemies, boxes, buttons and spikes spread at a fixed
+ * density. Generation is seeded, so the checked-in files can be rebuilt.
+ *
+ * Usage: java bench.SyntheticMaps size... (writes src/main/resources/Resource/bench/synthetic-size.txt)
+ */
+public class SyntheticMaps {
+    private static final int WATER = 12;
+    private static final int GRASS = 0;
+    private static final int WALL = 2;
+
+    public static void main(String[] args) throws IOException {
+        Path dir = Path.of("src/main/resources/Resource/bench");
+        Files.createDirectories(dir);
+        for (String arg : args) {
+            int size = Integer.parseInt(arg);
+            Path file = dir.resolve("synthetic-" + size + ".txt");
+            Files.write(file, generate(size, size, size));
+            System.out.println("wrote " + file);
+        }
+    }
+
+    public static List<String> generate(int cols, int rows, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int[][] map = new int[rows][cols];
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                boolean border = r == 0 || c == 0 || r == rows - 1 || c == cols - 1;
+                map[r][c] = border ? WATER : (random.nextInt(10) == 0 ? WALL : GRASS);
+            }
+        }
+
+        // fixed spawns, on cleared ground
+        map[1][1] = 90; // knight
+        map[1][2] = 91; // thief
+        map[2][1] = 92; // wizard
+        map[2][2] = GRASS;
+        map[rows / 2][cols / 2] = 8; // key
+        map[rows - 2][cols - 2] = 9; // chest
+
+        // spread props over free grass: per 1000 tiles, 20 enemies, 15 boxes, 5 buttons, 10 spikes
+        int tiles = (cols - 2) * (rows - 2);
+        scatter(map, random, tiles * 20 / 1000, 80, 81);
+        scatter(map, random, tiles * 15 / 1000, 50, 50);
+        scatter(map, random, tiles * 5 / 1000, 60, 60);
+        scatter(map, random, tiles * 10 / 1000, 70, 70);
+
+        List<String> lines = new ArrayList<>();
+        lines.add("seed " + seed);
+        for (int[] row : map) {
+            StringBuilder line = new StringBuilder();
+            for (int c = 0; c < row.length; c++) {
+                if (c > 0)
+                    line.append(' ');
+                line.append(row[c]);
+            }
+            lines.add(line.toString());
+        }
+        return lines;
+    }
+
+    /** Places count codes (alternating between first and second) on random grass tiles away from the spawn corner. */
+    private static void scatter(int[][] map, SplittableRandom random, int count, int first, int second) {
+        int rows = map.length, cols = map[0].length;
+        for (int placed = 0; placed < count;) {
+            int r = 1 + random.nextInt(rows - 2), c = 1 + random.nextInt(cols - 2);
+            if (map[r][c] != GRASS || (r < 5 && c < 5))
+                continue;
+            map[r][c] = (placed % 2 == 0) ? first : second;
+            placed++;
+        }
+    }
+}
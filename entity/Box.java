@@ -1,9 +1,10 @@
 package entity;
 
-import java.awt.Graphics2D;
 import java.awt.Color;
 import java.awt.image.BufferedImage;
 
+import main.RenderFrame;
+
 public class Box extends Entity {
     private BufferedImage sprite;
 
@@ -17,31 +18,13 @@ public class Box extends Entity {
         this.speed = 4;
     }
 
-    public void interpolateToTarget() {
-        if (movingToTarget) {
-            if (x < targetX)
-                x += speed;
-            if (x > targetX)
-                x -= speed;
-            if (y < targetY)
-                y += speed;
-            if (y > targetY)
-                y -= speed;
-
-            if (Math.abs(x - targetX) < speed && Math.abs(y - targetY) < speed) {
-                x = targetX;
-                y = targetY;
-                movingToTarget = false;
-            }
-        }
-    }
-
-    public void draw(Graphics2D g2, int tileSize) {
+    @Override
+    public void draw(RenderFrame frame, int tileSize) {
         if (sprite != null) {
-            drawAt(g2, sprite, tileSize);
+            drawAt(frame, sprite, tileSize);
         } else {
-            g2.setColor(Color.ORANGE);
-            g2.fillRect(x, y, tileSize, tileSize);
+            frame.setColor(Color.ORANGE);
+            frame.fillRect(x, y, tileSize, tileSize);
         }
     }
 }
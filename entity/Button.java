@@ -2,8 +2,8 @@ package entity;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
-import javax.imageio.ImageIO;
-import java.io.IOException;
+import main.AssetCache;
+import main.RenderFrame;
 
 public class Button extends Entity {
     public enum ButtonType {
@@ -12,6 +12,7 @@ public class Button extends Entity {
 
     private static BufferedImage[] unpressedSprites;
     private static BufferedImage[] pressedSprites;
+    private static int spriteSize; // tile size the cached sprites were scaled to
     private boolean isPressed = false;
     private boolean wasPressedLastFrame = false;
     private int id;
@@ -29,23 +30,21 @@ public class Button extends Entity {
         this.id = id;
         this.type = type;
         this.hitbox = new Rectangle(4, 6, 24, 12);
-        loadSprites();
+        this.renderLayer = RenderQueue.GROUND;
     }
 
-    private void loadSprites() {
-        if (unpressedSprites == null || pressedSprites == null) {
-            try {
-                unpressedSprites = new BufferedImage[] {
-                        ImageIO.read(getClass().getResourceAsStream("/Resource/tiles/button0_unpressed.png")),
-                        ImageIO.read(getClass().getResourceAsStream("/Resource/tiles/button1_unpressed.png"))
-                };
-                pressedSprites = new BufferedImage[] {
-                        ImageIO.read(getClass().getResourceAsStream("/Resource/tiles/button0_pressed.png")),
-                        ImageIO.read(getClass().getResourceAsStream("/Resource/tiles/button1_pressed.png"))
-                };
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
+    // pre-scaled to the tile size, so drawing them is a plain copy
+    private static void loadSprites(int size) {
+        if (unpressedSprites == null || pressedSprites == null || spriteSize != size) {
+            unpressedSprites = new BufferedImage[] {
+                    AssetCache.image("/Resource/tiles/button0_unpressed.png", size),
+                    AssetCache.image("/Resource/tiles/button1_unpressed.png", size)
+            };
+            pressedSprites = new BufferedImage[] {
+                    AssetCache.image("/Resource/tiles/button0_pressed.png", size),
+                    AssetCache.image("/Resource/tiles/button1_pressed.png", size)
+            };
+            spriteSize = size;
         }
     }
 
@@ -85,11 +84,21 @@ public class Button extends Entity {
         return this.id;
     }
 
-    public void draw(Graphics2D g2, int tileSize) {
+    @Override
+    protected void restoreState(Entity saved) {
+        super.restoreState(saved);
+        Button b = (Button) saved;
+        isPressed = b.isPressed;
+        wasPressedLastFrame = b.wasPressedLastFrame;
+    }
+
+    @Override
+    public void draw(RenderFrame frame, int tileSize) {
+        loadSprites(tileSize);
         BufferedImage img = isPressed ? pressedSprites[id % pressedSprites.length]
                 : unpressedSprites[id % unpressedSprites.length];
         if (img != null)
-            g2.drawImage(img, x, y, tileSize, tileSize, null);
+            frame.drawImage(img, x, y, tileSize, tileSize);
     }
 
 }
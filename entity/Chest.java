@@ -1,8 +1,9 @@
 package entity;
 
-import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 
+import main.RenderFrame;
+
 public class Chest extends Entity {
     private BufferedImage sprite;
 
@@ -15,8 +16,9 @@ public class Chest extends Entity {
         this.sprite = sprite;
     }
 
-    public void draw(Graphics2D g2, int tileSize) {
+    @Override
+    public void draw(RenderFrame frame, int tileSize) {
         if (sprite != null)
-            drawAt(g2, sprite, tileSize);
+            drawAt(frame, sprite, tileSize);
     }
 }
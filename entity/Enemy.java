@@ -1,12 +1,12 @@
 package entity;
 
 import java.awt.Color;
-import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
-import javax.imageio.ImageIO;
-import java.io.IOException;
+import java.util.SplittableRandom;
 
-import main.GamePanel;
+import main.AssetCache;
+import main.RenderFrame;
+import main.World;
 
 public class Enemy extends Entity {
     private BufferedImage[] spriteRightFrames;
@@ -24,14 +24,25 @@ public class Enemy extends Entity {
     private int moveCooldown = 2;
     private int moveTimer = 0;
     private boolean patrolEnabled = true;
-    private boolean returningHome = false;
+    private final long randomSeed; // drawn from the level's random at spawn
 
     // ===== Chase settings =====
     private int detectRange = 2;
     private boolean chasing = false;
 
-    public Enemy(int x, int y, GamePanel gp, boolean patrolEnabled) {
-        super(gp);
+    // ===== Decided move for the current tick (phase 1 -> phase 2) =====
+    private static final int INTENT_NONE = 0;
+    private static final int INTENT_PATROL = 1; // step to (intentCol, intentRow) along patrolDir
+    private static final int INTENT_PATH = 2; // take the first of steps[] no other enemy is heading to
+    private int intent = INTENT_NONE;
+    private int intentCol, intentRow;
+    private boolean intentOpen; // patrol tile passes canMoveTo
+    private final int[] steps = new int[4]; // shortest step directions along the flow field, preferred first
+    private final boolean[] stepOpen = new boolean[4]; // step tile passes canMoveTo
+    private int stepCount;
+
+    public Enemy(int x, int y, World world, boolean patrolEnabled) {
+        super(world);
         this.x = x;
         this.y = y;
         this.speed = 2;
@@ -39,16 +50,35 @@ public class Enemy extends Entity {
         this.startX = x;
         this.startY = y;
         this.patrolEnabled = patrolEnabled;
+        this.randomSeed = world.random.nextLong();
         loadSprites();
     }
 
-    public Enemy(int x, int y, GamePanel gp) {
-        this(x, y, gp, true);
+    public Enemy(int x, int y, World world) {
+        this(x, y, world, true);
     }
 
+    /** Runs all three AI phases for this enemy alone. */
     public void update() {
+        if (advance()) {
+            pinPaths(world.entityM.paths);
+            decide();
+            commit();
+            world.entityM.paths.unpinAll();
+        }
+    }
+
+    // =========================================================
+    // AI PHASES (see EntityManager.updateEnemies)
+    // =========================================================
+    /**
+     * Phase 0 (sequential): slides toward the current target and counts down
+     * the move timer. Returns true if a new move has to be decided this tick.
+     */
+    boolean advance() {
+        intent = INTENT_NONE;
         if (!active)
-            return;
+            return false;
 
         if (movingToTarget) {
             interpolateToTarget();
@@ -61,14 +91,39 @@ public class Enemy extends Entity {
                 spriteRight = spriteRightFrames[currentFrame];
                 spriteLeft = spriteLeftFrames[currentFrame];
             }
-            return;
+            return false;
         }
 
         if (moveTimer > 0) {
             moveTimer--;
-            return;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Before phase 1 (sequential): pins the flow fields decide() may read, toward
+     * every character in chase range and toward home.
+     */
+    void pinPaths(PathFinder paths) {
+        int tileSize = world.tileSize;
+        for (PlayableCharacter pc : world.entityM.characters) {
+            if (canChase(pc) && isWithinDetectionRange(pc))
+                paths.pin((pc.x + tileSize / 2) / tileSize, (pc.y + tileSize / 2) / tileSize, false);
         }
+        if (!patrolEnabled && (x != startX || y != startY))
+            paths.pin((startX + tileSize / 2) / tileSize, (startY + tileSize / 2) / tileSize, true);
+    }
 
+    /**
+     * Phase 1 (safe to run in parallel): picks the next move and the tiles it may
+     * step to. Reads only the characters, the tile map, the occupancy grid as it
+     * was before any enemy committed, the pinned flow fields and this enemy's own
+     * state, and writes only this enemy's own fields, so the outcome does not
+     * depend on evaluation order. Enemies are ignored by canMoveTo and the flow
+     * fields, so the commits that follow cannot change what was read here.
+     */
+    void decide() {
         PlayableCharacter target = findNearestCharacter();
         if (target != null && isWithinDetectionRange(target)) {
             chasing = true;
@@ -76,16 +131,27 @@ public class Enemy extends Entity {
             chasing = false;
         }
 
+        int tileSize = world.tileSize;
         if (chasing && target != null) {
-            performChase(target);
+            decidePath((target.x + tileSize / 2) / tileSize, (target.y + tileSize / 2) / tileSize, false);
+        } else if (!patrolEnabled && (x != startX || y != startY)) {
+            // Stationary enemy returns home after losing target, from however far away
+            decidePath((startX + tileSize / 2) / tileSize, (startY + tileSize / 2) / tileSize, true);
         } else {
-            if (!patrolEnabled && (x != startX || y != startY)) {
-                // Stationary enemy returns home after losing target
-                performReturnToStart();
-            } else {
-                performPatrol();
-            }
+            decidePatrol();
         }
+    }
+
+    /**
+     * Phase 2 (sequential, in enemy list order): checks the decided move against
+     * the moves already committed this tick and applies it.
+     */
+    void commit() {
+        switch (intent) {
+            case INTENT_PATROL -> commitPatrol();
+            case INTENT_PATH -> commitPath();
+        }
+        intent = INTENT_NONE;
         moveTimer = moveCooldown;
 
         // ✅ Always animate (even when idle)
@@ -102,150 +168,130 @@ public class Enemy extends Entity {
     // =========================================================
     // PATROL BEHAVIOR (horizontal OR vertical)
     // =========================================================
-    private void performPatrol() {
+    private void decidePatrol() {
         if (!patrolEnabled)
             return;
 
-        int tileSize = gp.tileSize;
+        int tileSize = world.tileSize;
         int curCol = (x + tileSize / 2) / tileSize;
         int curRow = (y + tileSize / 2) / tileSize;
 
         // Randomize initial patrol direction once
         if (!patrolAxisRandomized) {
-            if (Math.random() < 0.5) {
-                patrolDir = (Math.random() < 0.5) ? "L" : "R";
+            SplittableRandom random = new SplittableRandom(randomSeed);
+            if (random.nextBoolean()) {
+                patrolDir = random.nextBoolean() ? "L" : "R";
             } else {
-                patrolDir = (Math.random() < 0.5) ? "U" : "D";
+                patrolDir = random.nextBoolean() ? "U" : "D";
             }
             patrolAxisRandomized = true;
         }
 
-        int dirX = 0, dirY = 0;
-        switch (patrolDir) {
-            case "R" -> dirX = 1;
-            case "L" -> dirX = -1;
-            case "U" -> dirY = -1;
-            case "D" -> dirY = 1;
-        }
-
-        int nextCol = curCol + dirX;
-        int nextRow = curRow + dirY;
-
-        boolean canMoveTile = gp.entityM.canMoveTo(this, nextCol, nextRow);
+        int dirX = patrolDirX(), dirY = patrolDirY();
         boolean tooFar = (dirX != 0)
                 ? Math.abs((x + dirX * tileSize) - startX) > patrolDistance * tileSize
                 : Math.abs((y + dirY * tileSize) - startY) > patrolDistance * tileSize;
+        if (tooFar) {
+            reversePatrol();
+            return;
+        }
 
-        Enemy occupied = gp.entityM.getEnemyAtTile(nextCol, nextRow);
+        intent = INTENT_PATROL;
+        intentCol = curCol + dirX;
+        intentRow = curRow + dirY;
+        intentOpen = world.entityM.canMoveTo(this, intentCol, intentRow);
+    }
+
+    private void commitPatrol() {
+        Enemy occupied = world.entityM.getEnemyAtTile(intentCol, intentRow);
         boolean occupiedByEnemy = (occupied != null && occupied != this);
 
-        if (!canMoveTile || tooFar || occupiedByEnemy) {
-            // Reverse direction
-            switch (patrolDir) {
-                case "R" -> patrolDir = "L";
-                case "L" -> patrolDir = "R";
-                case "U" -> patrolDir = "D";
-                case "D" -> patrolDir = "U";
-            }
+        if (!intentOpen || occupiedByEnemy) {
+            reversePatrol();
             return;
         }
 
-        targetX = x + dirX * tileSize;
-        targetY = y + dirY * tileSize;
+        int tileSize = world.tileSize;
+        targetX = x + patrolDirX() * tileSize;
+        targetY = y + patrolDirY() * tileSize;
         movingToTarget = true;
+        world.entityM.grid.update(this);
     }
 
-    // =========================================================
-    // CHASE BEHAVIOR (no overlap)
-    // =========================================================
-    private void performChase(PlayableCharacter target) {
-        int tileSize = gp.tileSize;
-
-        int enemyCol = (x + tileSize / 2) / tileSize;
-        int enemyRow = (y + tileSize / 2) / tileSize;
-        int playerCol = (target.x + tileSize / 2) / tileSize;
-        int playerRow = (target.y + tileSize / 2) / tileSize;
-
-        int dirX = Integer.compare(playerCol, enemyCol);
-        int dirY = Integer.compare(playerRow, enemyRow);
-
-        int nextCol = enemyCol;
-        int nextRow = enemyRow;
+    private int patrolDirX() {
+        return "R".equals(patrolDir) ? 1 : ("L".equals(patrolDir) ? -1 : 0);
+    }
 
-        // Prefer axis with larger distance
-        if (Math.abs(playerCol - enemyCol) >= Math.abs(playerRow - enemyRow)) {
-            nextCol = enemyCol + dirX;
-        } else {
-            nextRow = enemyRow + dirY;
-        }
+    private int patrolDirY() {
+        return "D".equals(patrolDir) ? 1 : ("U".equals(patrolDir) ? -1 : 0);
+    }
 
-        // Fallback if blocked or occupied
-        if (!gp.entityM.canMoveTo(this, nextCol, nextRow)
-                || (gp.entityM.getEnemyAtTile(nextCol, nextRow) != null
-                        && gp.entityM.getEnemyAtTile(nextCol, nextRow) != this)) {
-            if (Math.abs(playerCol - enemyCol) >= Math.abs(playerRow - enemyRow)) {
-                nextCol = enemyCol;
-                nextRow = enemyRow + dirY;
-            } else {
-                nextCol = enemyCol + dirX;
-                nextRow = enemyRow;
-            }
+    private void reversePatrol() {
+        switch (patrolDir) {
+            case "R" -> patrolDir = "L";
+            case "L" -> patrolDir = "R";
+            case "U" -> patrolDir = "D";
+            case "D" -> patrolDir = "U";
         }
+    }
 
-        Enemy occupied = gp.entityM.getEnemyAtTile(nextCol, nextRow);
-        boolean occupiedByEnemy = (occupied != null && occupied != this);
-
-        if (!gp.entityM.canMoveTo(this, nextCol, nextRow) || occupiedByEnemy)
-            return;
-
-        targetX = nextCol * tileSize;
-        targetY = nextRow * tileSize;
-        movingToTarget = true;
+    // =========================================================
+    // CHASE / RETURN HOME (no overlap)
+    // =========================================================
+    /** Lists the shortest steps toward the given tile along the shared flow field, and which are open. */
+    private void decidePath(int goalCol, int goalRow, boolean unlimited) {
+        int tileSize = world.tileSize;
+        int enemyCol = (x + tileSize / 2) / tileSize;
+        int enemyRow = (y + tileSize / 2) / tileSize;
 
-        patrolDir = (dirX > 0) ? "R" : (dirX < 0 ? "L" : patrolDir);
+        intent = INTENT_PATH;
+        stepCount = world.entityM.paths.shortestSteps(enemyCol, enemyRow, goalCol, goalRow, unlimited, steps);
+        for (int i = 0; i < stepCount; i++)
+            stepOpen[i] = world.entityM.canMoveTo(this, enemyCol + PathFinder.DX[steps[i]], enemyRow + PathFinder.DY[steps[i]]);
     }
 
-    // Returning Home
-    private void performReturnToStart() {
-        int tileSize = gp.tileSize;
+    /** Takes the first listed step no other enemy is heading to, if that tile is open. */
+    private void commitPath() {
+        int tileSize = world.tileSize;
         int enemyCol = (x + tileSize / 2) / tileSize;
         int enemyRow = (y + tileSize / 2) / tileSize;
-        int startCol = (startX + tileSize / 2) / tileSize;
-        int startRow = (startY + tileSize / 2) / tileSize;
 
-        int dirX = Integer.compare(startCol, enemyCol);
-        int dirY = Integer.compare(startRow, enemyRow);
-        int nextCol = enemyCol + dirX;
-        int nextRow = enemyRow + dirY;
-
-        if (!gp.entityM.canMoveTo(this, nextCol, nextRow))
-            return;
+        for (int i = 0; i < stepCount; i++) {
+            int dir = steps[i];
+            int nextCol = enemyCol + PathFinder.DX[dir];
+            int nextRow = enemyRow + PathFinder.DY[dir];
+            if (world.entityM.paths.enemyHeadingTo(this, nextCol, nextRow))
+                continue;
+            if (!stepOpen[i])
+                return;
 
-        targetX = nextCol * tileSize;
-        targetY = nextRow * tileSize;
-        movingToTarget = true;
+            targetX = nextCol * tileSize;
+            targetY = nextRow * tileSize;
+            movingToTarget = true;
+            world.entityM.grid.update(this);
 
-        patrolDir = (dirX > 0) ? "R" : (dirX < 0 ? "L" : patrolDir);
+            int dirX = PathFinder.DX[dir];
+            patrolDir = (dirX > 0) ? "R" : (dirX < 0 ? "L" : patrolDir);
+            return;
+        }
     }
 
     // =========================================================
     // DETECTION & VISIBILITY
     // =========================================================
     private PlayableCharacter findNearestCharacter() {
-        if (gp == null || gp.entityM == null)
+        if (world == null || world.entityM == null)
             return null;
         PlayableCharacter nearest = null;
-        double minDist = Double.MAX_VALUE;
+        long minDist = Long.MAX_VALUE;
 
-        for (PlayableCharacter pc : gp.entityM.characters) {
-            if (!pc.active)
-                continue;
-            if ("thief".equalsIgnoreCase(pc.getRole()))
+        for (PlayableCharacter pc : world.entityM.characters) {
+            if (!canChase(pc))
                 continue;
 
-            double dx = pc.x - this.x;
-            double dy = pc.y - this.y;
-            double dist = Math.sqrt(dx * dx + dy * dy);
+            long dx = pc.x - this.x;
+            long dy = pc.y - this.y;
+            long dist = dx * dx + dy * dy; // squared, only compared
             if (dist < minDist) {
                 minDist = dist;
                 nearest = pc;
@@ -254,94 +300,66 @@ public class Enemy extends Entity {
         return nearest;
     }
 
+    /** Enemies ignore the thief and dead characters. */
+    private static boolean canChase(PlayableCharacter pc) {
+        return pc.active && !"thief".equalsIgnoreCase(pc.getRole());
+    }
+
     private boolean isWithinDetectionRange(PlayableCharacter pc) {
-        int tileSize = gp.tileSize;
-        double dx = Math.abs(pc.x - this.x);
-        double dy = Math.abs(pc.y - this.y);
-        double distTiles = Math.sqrt(dx * dx + dy * dy) / tileSize;
-        return distTiles <= detectRange;
+        long range = (long) detectRange * world.tileSize;
+        long dx = pc.x - this.x;
+        long dy = pc.y - this.y;
+        return dx * dx + dy * dy <= range * range;
     }
 
     private boolean canSeePlayer(PlayableCharacter pc) {
-        int tileSize = gp.tileSize;
+        int tileSize = world.tileSize;
         int enemyCol = (x + tileSize / 2) / tileSize;
         int enemyRow = (y + tileSize / 2) / tileSize;
         int playerCol = (pc.x + tileSize / 2) / tileSize;
         int playerRow = (pc.y + tileSize / 2) / tileSize;
+        return world.tileM.visibility.canSee(enemyCol, enemyRow, playerCol, playerRow);
+    }
 
-        int dx = Math.abs(playerCol - enemyCol);
-        int dy = Math.abs(playerRow - enemyRow);
-        int sx = (enemyCol < playerCol) ? 1 : -1;
-        int sy = (enemyRow < playerRow) ? 1 : -1;
-        int err = dx - dy;
-
-        int cx = enemyCol;
-        int cy = enemyRow;
-
-        while (true) {
-            if (gp.tileM.isTileCollidable(cx, cy) && !(cx == enemyCol && cy == enemyRow))
-                return false;
-            if (cx == playerCol && cy == playerRow)
-                return true;
-            int e2 = 2 * err;
-            if (e2 > -dy) {
-                err -= dy;
-                cx += sx;
-            }
-            if (e2 < dx) {
-                err += dx;
-                cy += sy;
-            }
-        }
+    @Override
+    protected void restoreState(Entity saved) {
+        super.restoreState(saved);
+        Enemy e = (Enemy) saved;
+        spriteRight = e.spriteRight;
+        spriteLeft = e.spriteLeft;
+        currentFrame = e.currentFrame;
+        frameCounter = e.frameCounter;
+        patrolDir = e.patrolDir;
+        patrolAxisRandomized = e.patrolAxisRandomized;
+        moveTimer = e.moveTimer;
+        chasing = e.chasing;
     }
 
     // =========================================================
     // DRAWING
     // =========================================================
-    public void draw(Graphics2D g2, int tileSize) {
+    @Override
+    public void draw(RenderFrame frame, int tileSize) {
         if (!active)
             return;
         BufferedImage current = ("R".equals(patrolDir)) ? spriteRight : spriteLeft;
         if (current != null)
-            g2.drawImage(current, x, y, tileSize, tileSize, null);
+            frame.drawImage(current, x, y, tileSize, tileSize);
         else {
-            g2.setColor(chasing ? Color.ORANGE : Color.RED);
-            g2.fillRect(x, y, tileSize, tileSize);
+            frame.setColor(chasing ? Color.ORANGE : Color.RED);
+            frame.fillRect(x, y, tileSize, tileSize);
         }
     }
 
-    // Sprite Loading
+    // Sprite Loading (shared frames from the asset cache)
     private void loadSprites() {
-        try {
-            String basePath = "/Resource/enemies/";
-
-            if (patrolEnabled) {
-                spriteRightFrames = sliceSpriteSheet(
-                        ImageIO.read(getClass().getResourceAsStream(basePath + "BloodshotEye_right.png")), 4);
-                spriteLeftFrames = sliceSpriteSheet(
-                        ImageIO.read(getClass().getResourceAsStream(basePath + "BloodshotEye_left.png")), 4);
-            } else {
-                spriteRightFrames = sliceSpriteSheet(
-                        ImageIO.read(getClass().getResourceAsStream(basePath + "OcularWatcher_right.png")), 4);
-                spriteLeftFrames = sliceSpriteSheet(
-                        ImageIO.read(getClass().getResourceAsStream(basePath + "OcularWatcher_left.png")), 4);
-            }
-
-            currentFrame = 0;
-            spriteRight = spriteRightFrames[currentFrame];
-            spriteLeft = spriteLeftFrames[currentFrame];
-
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-    }
-
-    private BufferedImage[] sliceSpriteSheet(BufferedImage sheet, int cols) {
-        int frameWidth = sheet.getWidth() / cols;
-        int frameHeight = sheet.getHeight();
-        BufferedImage[] frames = new BufferedImage[cols];
-        for (int i = 0; i < cols; i++)
-            frames[i] = sheet.getSubimage(i * frameWidth, 0, frameWidth, frameHeight);
-        return frames;
+        String basePath = "/Resource/enemies/";
+        String name = patrolEnabled ? "BloodshotEye" : "OcularWatcher";
+        spriteRightFrames = AssetCache.frames(basePath + name + "_right.png", 4, world.tileSize);
+        spriteLeftFrames = AssetCache.frames(basePath + name + "_left.png", 4, world.tileSize);
+
+        currentFrame = 0;
+        spriteRight = spriteRightFrames[currentFrame];
+        spriteLeft = spriteLeftFrames[currentFrame];
     }
 }
@@ -3,9 +3,10 @@ package entity;
 import java.awt.*;
 import java.awt.image.BufferedImage;
 
-import main.GamePanel;
+import main.RenderFrame;
+import main.World;
 
-public class Entity {
+public class Entity implements Cloneable {
     // pixel coordinates (top-left)
     public int x, y;
 
@@ -13,11 +14,14 @@ public class Entity {
     public int targetX, targetY;
     public boolean movingToTarget = false;
 
-    // per-frame interpolation speed in pixels
+    // per-tick movement speed in pixels
     public int speed = 4;
 
+    // position at the start of the current tick; the renderer blends from here to (x, y)
+    public int prevX, prevY;
+
     // rendering/misc
-    protected GamePanel gp;
+    protected World world;
 
     public String direction = "R";
     public int spriteCounter = 0;
@@ -32,51 +36,67 @@ public class Entity {
     public int hitboxOffsetX = 0;
     public int hitboxOffsetY = 0;
 
+    // bucket index in the EntityManager's OccupancyGrid (-1 = not indexed)
+    int gridCell = -1;
+
+    // position in the EntityManager's RenderQueue (null / -1 = not queued)
+    RenderQueue renderQueue;
+    int renderSlot = -1;
+    int renderOrder;
+
     // Constructor
     public Entity() {
 
     }
 
-    public Entity(GamePanel gp) {
-        this.gp = gp;
+    public Entity(World world) {
+        this.world = world;
     }
 
-    public void setGamePanel(GamePanel gp) {
-        this.gp = gp;
+    public void setWorld(World world) {
+        this.world = world;
     }
 
-    public GamePanel getGamePanel() {
-        return this.gp;
+    public World getWorld() {
+        return this.world;
     }
 
-    // return entity own hit-box
-    public Rectangle getWorldHitbox() {
-        return new Rectangle(x + hitbox.x + hitboxOffsetX,
-                y + hitbox.y + hitboxOffsetY,
-                hitbox.width,
-                hitbox.height);
+    // Check collision
+    public boolean collidesWith(Entity other, int proposedX, int proposedY) {
+        return other.overlapsRect(proposedX + hitbox.x + hitboxOffsetX, proposedY + hitbox.y + hitboxOffsetY,
+                hitbox.width, hitbox.height);
     }
 
-    // Predict where the entity's hitbox would be
-    // Useful for collision checks before committing movement.
-    public Rectangle getPredictedHitbox(int newX, int newY) {
-        return new Rectangle(newX + hitbox.x + hitboxOffsetX,
-                newY + hitbox.y + hitboxOffsetY,
-                hitbox.width,
-                hitbox.height);
+    // ===== Allocation-free hitbox checks (same rules as Rectangle.intersects) =====
+    public int hitboxLeft() {
+        return x + hitbox.x + hitboxOffsetX;
     }
 
-    // Check collision
-    public boolean collidesWith(Entity other, int proposedX, int proposedY) {
-        Rectangle myHitbox = getPredictedHitbox(proposedX, proposedY);
-        Rectangle otherHitbox = other.getWorldHitbox();
-        return myHitbox.intersects(otherHitbox);
+    public int hitboxTop() {
+        return y + hitbox.y + hitboxOffsetY;
+    }
+
+    /** True if this entity's hitbox overlaps the other entity's hitbox. */
+    public boolean overlaps(Entity other) {
+        return overlapsRect(other.hitboxLeft(), other.hitboxTop(), other.hitbox.width, other.hitbox.height);
+    }
+
+    /** True if this entity's hitbox overlaps the given world-space rectangle. */
+    public boolean overlapsRect(int rx, int ry, int rw, int rh) {
+        return intersects(hitboxLeft(), hitboxTop(), hitbox.width, hitbox.height, rx, ry, rw, rh);
+    }
+
+    public static boolean intersects(int ax, int ay, int aw, int ah, int bx, int by, int bw, int bh) {
+        if (aw <= 0 || ah <= 0 || bw <= 0 || bh <= 0)
+            return false;
+        return ax < bx + bw && bx < ax + aw && ay < by + bh && by < ay + ah;
     }
 
     // updates x,y and movingToTarget
     public void interpolateToTarget() {
         if (!movingToTarget)
             return;
+        int oldY = y;
 
         if (x < targetX) {
             x = Math.min(targetX, x + speed);
@@ -93,14 +113,66 @@ public class Entity {
         if (x == targetX && y == targetY) {
             movingToTarget = false;
         }
+        if (y != oldY)
+            positionChanged();
+    }
+
+    /**
+     * Marks the current position as the start of the tick's motion. Called for
+     * every mover before each tick, and after a jump so it is not drawn sliding.
+     */
+    public void storePrevious() {
+        prevX = x;
+        prevY = y;
+    }
+
+    /** Keeps the draw order in step after y changed outside interpolateToTarget(). */
+    public void positionChanged() {
+        if (renderQueue != null)
+            renderQueue.moved(this);
+    }
+
+    // ===== Level snapshot support =====
+    /** Shallow copy of this entity's current state (sprites and hitbox are shared). */
+    public Entity copyState() {
+        try {
+            return (Entity) clone();
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * Copies mutable state back from a copy made by {@link #copyState()}.
+     * Subclasses with their own state override this and call super.
+     */
+    protected void restoreState(Entity saved) {
+        x = saved.x;
+        y = saved.y;
+        targetX = saved.targetX;
+        targetY = saved.targetY;
+        movingToTarget = saved.movingToTarget;
+        speed = saved.speed;
+        direction = saved.direction;
+        spriteCounter = saved.spriteCounter;
+        spriteNum = saved.spriteNum;
+        moving = saved.moving;
+        solid = saved.solid;
+        pushable = saved.pushable;
+        active = saved.active;
+        renderLayer = saved.renderLayer;
+    }
+
+    /** Render hook called by the RenderQueue; subclasses draw their sprite here. */
+    public void draw(RenderFrame frame, int tileSize) {
     }
 
     // Draw helper (subclasses may override)
-    public void drawAt(Graphics2D g2, BufferedImage img, int tileSize) {
+    public void drawAt(RenderFrame frame, BufferedImage img, int tileSize) {
         if (img == null)
             return;
         int offsetX = 2;
         int offsetY = 0;
-        g2.drawImage(img, x + offsetX, y + offsetY, tileSize, tileSize, null);
+        frame.drawImage(img, x + offsetX, y + offsetY, tileSize, tileSize);
     }
 }
@@ -3,14 +3,19 @@ package entity;
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import entity.Button.ButtonType;
-import main.GamePanel;
+import main.World;
 import main.KeyHandler;
+import main.RenderFrame;
+import main.GameLog;
+import tile.MapCode;
 import tile.TileManager;
 
 public class EntityManager {
-    private GamePanel gp;
+    private World world;
     private KeyHandler keyH;
 
     // ENTITY COLLECTION
@@ -21,8 +26,23 @@ public class EntityManager {
     public ArrayList<Spike> spikes;
     public ArrayList<Key> keys;
 
-    public EntityManager(GamePanel gp, KeyHandler keyH) {
-        this.gp = gp;
+    // tile -> entities lookup for collision queries
+    public OccupancyGrid grid;
+    // shared enemy flow fields over the same grid
+    public PathFinder paths;
+    // layered, y-sorted draw order
+    public final RenderQueue renderQueue = new RenderQueue();
+
+    // enemies hold still (solver: patrols would make every state depend on time)
+    public boolean enemiesFrozen = false;
+
+    // enemies that decide a move this tick; decided in parallel above the threshold
+    static final int PARALLEL_DECIDE_THRESHOLD = 256;
+    int parallelDecideThreshold = PARALLEL_DECIDE_THRESHOLD; // tests force either path
+    private Enemy[] deciding = new Enemy[16];
+
+    public EntityManager(World world, KeyHandler keyH) {
+        this.world = world;
         this.keyH = keyH;
 
         characters = new ArrayList<>();
@@ -31,11 +51,15 @@ public class EntityManager {
         buttons = new ArrayList<>();
         spikes = new ArrayList<>();
         keys = new ArrayList<>();
+        grid = new OccupancyGrid(world.maxWorldCol, world.maxWorldRow, world.tileSize);
+        paths = new PathFinder(world, grid);
     }
 
     // LOADING FROM TILE MANAGER
     public void loadFromTileManager(TileManager tm) {
         clearAll();
+        grid = new OccupancyGrid(world.maxWorldCol, world.maxWorldRow, world.tileSize);
+        paths = new PathFinder(world, grid);
 
         // Playable Characters
         for (int[] pos : tm.playableCharacterPositions) {
@@ -48,10 +72,10 @@ public class EntityManager {
             };
             PlayableCharacter pc;
             switch (role) {
-                case "knight" -> pc = new Knight(col * gp.tileSize, row * gp.tileSize, gp);
-                case "thief" -> pc = new Thief(col * gp.tileSize, row * gp.tileSize, gp);
-                case "wizard" -> pc = new Wizard(col * gp.tileSize, row * gp.tileSize, gp);
-                default -> pc = new PlayableCharacter(role, col * gp.tileSize, row * gp.tileSize, gp);
+                case "knight" -> pc = new Knight(col * world.tileSize, row * world.tileSize, world);
+                case "thief" -> pc = new Thief(col * world.tileSize, row * world.tileSize, world);
+                case "wizard" -> pc = new Wizard(col * world.tileSize, row * world.tileSize, world);
+                default -> pc = new PlayableCharacter(role, col * world.tileSize, row * world.tileSize, world);
             }
             characters.add(pc);
 
@@ -61,7 +85,7 @@ public class EntityManager {
         for (int[] pos : tm.boxPositions) {
             int col = pos[0], row = pos[1], type = pos[2];
             BufferedImage sprite = (type >= 0 && type < tm.boxSprites.length) ? tm.boxSprites[type] : null;
-            worldEntities.add(new Box(col * gp.tileSize, row * gp.tileSize, sprite));
+            worldEntities.add(new Box(col * world.tileSize, row * world.tileSize, sprite));
         }
 
         // Enemies
@@ -71,21 +95,14 @@ public class EntityManager {
             // Even:Patrol Odd:Stationary
             boolean patrolEnabled = (type % 2 == 0);
 
-            // Color Marking
-            BufferedImage enemySprite = new BufferedImage(gp.tileSize, gp.tileSize, BufferedImage.TYPE_INT_ARGB);
-            Graphics2D g2 = enemySprite.createGraphics();
-            g2.setColor(patrolEnabled ? Color.RED : Color.BLUE);
-            g2.fillRect(0, 0, gp.tileSize, gp.tileSize);
-            g2.dispose();
-
-            Enemy enemy = new Enemy(col * gp.tileSize, row * gp.tileSize, gp, patrolEnabled);
+            Enemy enemy = new Enemy(col * world.tileSize, row * world.tileSize, world, patrolEnabled);
             enemies.add(enemy);
         }
 
         // initialize position (snap to grid)
         for (PlayableCharacter pc : characters) {
-            pc.targetX = pc.x = (pc.x / gp.tileSize) * gp.tileSize;
-            pc.targetY = pc.y = (pc.y / gp.tileSize) * gp.tileSize;
+            pc.targetX = pc.x = (pc.x / world.tileSize) * world.tileSize;
+            pc.targetY = pc.y = (pc.y / world.tileSize) * world.tileSize;
         }
         for (Entity e : worldEntities) {
             e.targetX = e.x;
@@ -96,55 +113,75 @@ public class EntityManager {
             en.targetY = en.y;
         }
 
-        // scan map codes for buttons & spikes
-        for (int row = 0; row < gp.maxScreenRow; row++) {
-            for (int col = 0; col < gp.maxScreenCol; col++) {
-                String code = tm.mapCodes[col][row];
-                if (code == null)
+        // scan map codes for buttons, spikes, keys & chests
+        for (int row = 0; row < world.maxWorldRow; row++) {
+            for (int col = 0; col < world.maxWorldCol; col++) {
+                int code = tm.mapCodes[col][row];
+                int flags = MapCode.flags(code);
+                if (flags == 0)
                     continue;
-                try {
-                    int num = Integer.parseInt(code);
-                    // Button
-                    // Hold
-                    if (num >= 60 && num <= 64)
-                        buttons.add(new Button(col * gp.tileSize, row * gp.tileSize, num - 60, ButtonType.HOLD));
-                    // Toggle
-                    else if (num >= 65 && num <= 69)
-                        buttons.add(new Button(col * gp.tileSize, row * gp.tileSize, num - 60, ButtonType.TOGGLE));
-                    // Spike
-                    else if (num >= 70 && num <= 79)
-                        spikes.add(new Spike(col * gp.tileSize, row * gp.tileSize, num - 70, true, gp));
-                } catch (NumberFormatException ignored) {
+                int x = col * world.tileSize;
+                int y = row * world.tileSize;
+
+                // Button (hold or toggle)
+                if ((flags & MapCode.BUTTON) != 0) {
+                    ButtonType type = (flags & MapCode.TOGGLE) != 0 ? ButtonType.TOGGLE : ButtonType.HOLD;
+                    buttons.add(new Button(x, y, MapCode.linkId(code), type));
+                }
+                // Spike
+                else if ((flags & MapCode.HAZARD) != 0) {
+                    spikes.add(new Spike(x, y, MapCode.linkId(code), true, world));
+                } else if ((flags & MapCode.KEY) != 0) {
+                    Key key = new Key(x, y, tm.tile.get(8).image);
+                    keys.add(key);
+                    worldEntities.add(key);
+                    tm.mapCodes[col][row] = 0; // make it grass again
+                } else if ((flags & MapCode.CHEST) != 0) {
+                    Chest chest = new Chest(x, y, tm.tile.get(9).image);
+                    worldEntities.add(chest);
+                    tm.mapCodes[col][row] = 0; // also grass again
                 }
             }
         }
-        // Keys & Chests
-        for (int row = 0; row < gp.maxScreenRow; row++) {
-            for (int col = 0; col < gp.maxScreenCol; col++) {
-                String code = tm.mapCodes[col][row];
-                if (code == null)
-                    continue;
 
-                try {
-                    int num = Integer.parseInt(code);
-                    int x = col * gp.tileSize;
-                    int y = row * gp.tileSize;
-
-                    if (num == 8) {
-                        Key key = new Key(x, y, tm.tile.get(8).image);
-                        keys.add(key);
-                        worldEntities.add(key);
-                        tm.mapCodes[col][row] = "0"; // make it grass again
-                    } else if (num == 9) {
-                        Chest chest = new Chest(x, y, tm.tile.get(9).image);
-                        worldEntities.add(chest);
-                        tm.mapCodes[col][row] = "0"; // also grass again
-                    }
+        rebuildGrid();
+        rebuildRenderQueue();
+    }
 
-                } catch (NumberFormatException ignored) {
-                }
-            }
-        }
+    /** Re-indexes everything that can block or be looked up by tile. */
+    public void rebuildGrid() {
+        grid.clear();
+        for (Entity e : characters)
+            grid.add(e);
+        for (Entity e : worldEntities)
+            grid.add(e);
+        for (Entity e : enemies)
+            grid.add(e);
+    }
+
+    /** Re-queues every drawable entity in the old draw order (ground, world, characters, enemies). */
+    public void rebuildRenderQueue() {
+        renderQueue.clear();
+        for (Entity e : spikes)
+            renderQueue.add(e);
+        for (Entity e : buttons)
+            renderQueue.add(e);
+        for (Entity e : worldEntities)
+            renderQueue.add(e);
+        for (Entity e : characters)
+            renderQueue.add(e);
+        for (Entity e : enemies)
+            renderQueue.add(e);
+    }
+
+    /** Remembers where every mover starts the coming tick (render interpolation). */
+    public void storePreviousPositions() {
+        for (Entity e : characters)
+            e.storePrevious();
+        for (Entity e : worldEntities)
+            e.storePrevious();
+        for (Entity e : enemies)
+            e.storePrevious();
     }
 
     // MAIN UPDATE
@@ -154,11 +191,8 @@ public class EntityManager {
             e.interpolateToTarget();
 
         // Enemy AI update
-        for (Enemy e : enemies) {
-            if (!e.active)
-                continue;
-            e.update();
-        }
+        if (!enemiesFrozen)
+            updateEnemies();
 
         // Enemy contact detection
         for (PlayableCharacter pc : characters)
@@ -168,6 +202,70 @@ public class EntityManager {
         checkKeyWinOrDestruction();
     }
 
+    /**
+     * Two-phase enemy tick. Every enemy first advances on its own, and the flow
+     * fields the ready ones may path along are pinned. Those then decide against
+     * the unchanged grid and the pinned fields (in parallel for large counts),
+     * and the decisions are committed one by one in list order, each checked
+     * against the moves committed before it. The result is the same for any
+     * number of threads.
+     */
+    public void updateEnemies() {
+        int count = 0;
+        for (Enemy e : enemies) {
+            if (!e.advance())
+                continue;
+            if (count == deciding.length) {
+                Enemy[] grown = new Enemy[deciding.length * 2];
+                System.arraycopy(deciding, 0, grown, 0, count);
+                deciding = grown;
+            }
+            deciding[count++] = e;
+        }
+
+        // the path cache is not thread-safe, so every field is built here first
+        for (int i = 0; i < count; i++)
+            deciding[i].pinPaths(paths);
+
+        if (count >= parallelDecideThreshold) {
+            ForkJoinPool.commonPool().invoke(new DecideTask(deciding, 0, count));
+        } else {
+            for (int i = 0; i < count; i++)
+                deciding[i].decide();
+        }
+
+        for (int i = 0; i < count; i++) {
+            deciding[i].commit();
+            deciding[i] = null;
+        }
+        paths.unpinAll();
+    }
+
+    /** Splits the decide phase over the fork/join pool. */
+    private static class DecideTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private static final int LEAF = 64;
+        private final Enemy[] enemies;
+        private final int from, to;
+
+        DecideTask(Enemy[] enemies, int from, int to) {
+            this.enemies = enemies;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= LEAF) {
+                for (int i = from; i < to; i++)
+                    enemies[i].decide();
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new DecideTask(enemies, from, mid), new DecideTask(enemies, mid, to));
+        }
+    }
+
     // RESTARTING
     public void clearAll() {
         characters.clear();
@@ -176,26 +274,22 @@ public class EntityManager {
         spikes.clear();
         buttons.clear();
         keys.clear();
+        grid.clear();
+        renderQueue.clear();
     }
 
     // MOVEMENT AND COLLISION
     public boolean canMoveTo(Entity mover, int targetCol, int targetRow) {
-        if (targetCol < 0 || targetCol >= gp.maxScreenCol || targetRow < 0 || targetRow >= gp.maxScreenRow)
+        if (targetCol < 0 || targetCol >= world.maxWorldCol || targetRow < 0 || targetRow >= world.maxWorldRow)
             return false;
 
-        int proposedX = targetCol * gp.tileSize;
-        int proposedY = targetRow * gp.tileSize;
-
         // --- 1. TILE COLLISION ---
-        if (gp.tileM.isTileCollidable(targetCol, targetRow)) {
-            String raw = gp.tileM.mapCodes != null ? gp.tileM.mapCodes[targetCol][targetRow] : null;
-            if (!isHazardCodeWalkableSafe(raw))
-                return false; // solid tile
-        }
+        if (world.tileM.isTileCollidable(targetCol, targetRow)
+                && !MapCode.is(world.tileM.mapCodes[targetCol][targetRow], MapCode.WALKABLE))
+            return false; // solid tile
 
         // --- 2. ENTITY COLLISION ---
-        Rectangle moverPredicted = mover.getPredictedHitbox(proposedX, proposedY);
-        for (Entity e : getAllEntities()) {
+        for (Entity e : grid.at(targetCol, targetRow)) {
             if (e == mover || !e.active)
                 continue;
 
@@ -203,32 +297,26 @@ public class EntityManager {
             if (e instanceof Enemy || e instanceof Key || e instanceof Chest)
                 continue;
 
-            if (moverPredicted.intersects(e.getWorldHitbox())) {
-                // Allow enemies to move into player tiles (so they can "catch" them)
-                if (mover instanceof Enemy && e instanceof PlayableCharacter) {
-                    continue;
-                }
-                // --- Enemies should not block movement ---
-                if (e instanceof Enemy) {
-                    continue; // allow moving into enemy tile
-                }
-                // --- Normal push logic ---
-                if (e.pushable) {
-                    int pushCol = targetCol + Integer.signum(targetCol - (mover.x / gp.tileSize));
-                    int pushRow = targetRow + Integer.signum(targetRow - (mover.y / gp.tileSize));
-                    if (!canMoveTo(e, pushCol, pushRow))
-                        return false;
-                    return true;
-                }
-                return false; // other entities block
+            // Allow enemies to move into player tiles (so they can "catch" them)
+            if (mover instanceof Enemy && e instanceof PlayableCharacter) {
+                continue;
+            }
+            // --- Normal push logic ---
+            if (e.pushable) {
+                int pushCol = targetCol + Integer.signum(targetCol - (mover.x / world.tileSize));
+                int pushRow = targetRow + Integer.signum(targetRow - (mover.y / world.tileSize));
+                if (!canMoveTo(e, pushCol, pushRow))
+                    return false;
+                return true;
             }
+            return false; // other entities block
         }
         return true; // all checks passed
     }
 
     /* Handles movement (including push logic). */
     public boolean moveEntity(PlayableCharacter pc, int dirX, int dirY) {
-        int tileSize = gp.tileSize;
+        int tileSize = world.tileSize;
         int curCol = (pc.x + tileSize / 2) / tileSize;
         int curRow = (pc.y + tileSize / 2) / tileSize;
         int nextCol = curCol + dirX;
@@ -247,14 +335,14 @@ public class EntityManager {
             // if knight, kill enemy and allow movement
             if (pc instanceof Knight) {
                 enemy.active = false; // enemy dies instantly
-                System.out.println("⚔️ Knight killed an enemy!");
+                GameLog.info("⚔️ Knight killed an enemy!");
                 // allow movement to proceed (do not return)
             } else {
                 // other roles die on contact; trigger game-over and abort movement
                 pc.active = false;
-                if (gp != null)
-                    gp.triggerGameOver();
-                System.out.println(pc.getRole() + " was caught by an enemy!");
+                if (world != null)
+                    world.triggerGameOver();
+                GameLog.info("{} was caught by an enemy!", pc.getRole());
                 return false;
             }
         }
@@ -268,6 +356,7 @@ public class EntityManager {
             blocking.targetX = pushX;
             blocking.targetY = pushY;
             blocking.movingToTarget = true;
+            grid.update(blocking);
         } else if (blocking != null && !(blocking instanceof Enemy)) {
             // If it's some other non-enemy blocking entity, prevent movement
             return false; // blocked by solid entity
@@ -277,6 +366,7 @@ public class EntityManager {
         pc.targetX = nextX;
         pc.targetY = nextY;
         pc.movingToTarget = true;
+        grid.update(pc);
         if (dirX < 0)
             pc.direction = "L";
         else if (dirX > 0)
@@ -288,24 +378,72 @@ public class EntityManager {
         return true;
     }
 
-    /** Finds a blocking entity at a given pixel position. */
+    /**
+     * Finds a blocking entity at a given pixel position: the first entity, in
+     * getAllEntities() order (characters, world entities, enemies), whose hitbox
+     * overlaps the mover's hitbox there. The grid only narrows the candidates to
+     * the tiles around the position, since a sliding entity is at most one tile
+     * from the target it is indexed by.
+     */
     private Entity getBlockingEntity(Entity mover, int proposedX, int proposedY) {
-        Rectangle pred = mover.getPredictedHitbox(proposedX, proposedY);
-        for (Entity e : getAllEntities()) {
-            if (e == mover || !e.active)
-                continue;
-            if (pred.intersects(e.getWorldHitbox()))
-                return e;
+        int col = Math.floorDiv(proposedX, world.tileSize);
+        int row = Math.floorDiv(proposedY, world.tileSize);
+        Entity best = null;
+        int bestRank = 0;
+        for (int r = row - 1; r <= row + 1; r++) {
+            for (int c = col - 1; c <= col + 1; c++) {
+                for (Entity e : grid.at(c, r)) {
+                    if (e == mover || !e.active || !mover.collidesWith(e, proposedX, proposedY))
+                        continue;
+                    int rank = blockingRank(e);
+                    if (best == null || rank < bestRank) {
+                        best = e;
+                        bestRank = rank;
+                    }
+                }
+            }
         }
-        return null;
+        return best;
+    }
+
+    /**
+     * The first active entity, in getAllEntities() order, whose hitbox touches
+     * the tile; null if none. A character standing on a button or key is found
+     * before it.
+     */
+    public Entity entityAt(int col, int row) {
+        int ts = world.tileSize;
+        Entity best = null;
+        int bestRank = 0;
+        for (int r = row - 1; r <= row + 1; r++) {
+            for (int c = col - 1; c <= col + 1; c++) {
+                for (Entity e : grid.at(c, r)) {
+                    if (!e.active || !e.overlapsRect(col * ts, row * ts, ts, ts))
+                        continue;
+                    int rank = blockingRank(e);
+                    if (best == null || rank < bestRank) {
+                        best = e;
+                        bestRank = rank;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    /** Position of the entity in getAllEntities() order, without building the list. */
+    private int blockingRank(Entity e) {
+        if (e instanceof PlayableCharacter pc)
+            return characters.indexOf(pc);
+        if (e instanceof Enemy enemy)
+            return characters.size() + worldEntities.size() + enemies.indexOf(enemy);
+        return characters.size() + worldEntities.indexOf(e);
     }
 
     // HAZARD UTILITIES
     public void checkHazardActivation(Entity mover) {
-        Rectangle hit = mover.getWorldHitbox();
-
         for (Button b : buttons) {
-            boolean pressedNow = hit.intersects(b.getWorldHitbox());
+            boolean pressedNow = mover.overlaps(b);
 
             if (b.isToggleType()) {
                 if (pressedNow && !b.wasPressedLastFrame()) {
@@ -326,19 +464,27 @@ public class EntityManager {
     }
 
     public void addButton(int col, int row, int id) {
-        int x = col * gp.tileSize;
-        int y = row * gp.tileSize;
+        int x = col * world.tileSize;
+        int y = row * world.tileSize;
         Button btn = new Button(x, y, id);
+        btn.targetX = x; // the grid buckets by target tile
+        btn.targetY = y;
         this.buttons.add(btn);
         this.worldEntities.add(btn);
+        grid.add(btn);
+        renderQueue.add(btn);
     }
 
     public void addSpike(int col, int row, int id) {
-        int x = col * gp.tileSize;
-        int y = row * gp.tileSize;
-        Spike s = new Spike(x, y, id, true, gp);
+        int x = col * world.tileSize;
+        int y = row * world.tileSize;
+        Spike s = new Spike(x, y, id, true, world);
+        s.targetX = x; // the grid buckets by target tile
+        s.targetY = y;
         this.spikes.add(s);
         this.worldEntities.add(s);
+        grid.add(s);
+        renderQueue.add(s);
     }
 
     public void handleEnemyContact(PlayableCharacter pc) {
@@ -348,19 +494,19 @@ public class EntityManager {
         for (Enemy enemy : enemies) {
             if (!enemy.active)
                 continue;
-            if (pc.getWorldHitbox().intersects(enemy.getWorldHitbox())) {
+            if (pc.overlaps(enemy)) {
 
                 if (pc instanceof Knight knight) {
                     knight.checkEnemyCollision(this); // knight kills enemy
-                    System.out.println("Knight collided with enemy!");
+                    GameLog.debug("Knight collided with enemy!"); // every tick while they overlap
                     return;
                 }
 
                 // thief and wizard die on contact
                 pc.active = false;
-                if (gp != null)
-                    gp.triggerGameOver();
-                System.out.println(pc.getRole() + " was caught by an enemy!");
+                if (world != null)
+                    world.triggerGameOver();
+                GameLog.info("{} was caught by an enemy!", pc.getRole());
                 return;
             }
         }
@@ -379,16 +525,9 @@ public class EntityManager {
 
     public ArrayList<Enemy> getEnemiesAtTile(int col, int row) {
         ArrayList<Enemy> result = new ArrayList<>();
-        int tileSize = gp.tileSize;
-
-        for (Enemy enemy : enemies) {
-            if (!enemy.active)
-                continue;
-            int eCol = (enemy.x + tileSize / 2) / tileSize;
-            int eRow = (enemy.y + tileSize / 2) / tileSize;
-            if (eCol == col && eRow == row) {
+        for (Entity e : grid.at(col, row)) {
+            if (e instanceof Enemy enemy && enemy.active)
                 result.add(enemy);
-            }
         }
         return result;
     }
@@ -398,49 +537,28 @@ public class EntityManager {
      * if none.
      */
     public Enemy getEnemyAtTile(int col, int row) {
-        int tileSize = gp.tileSize;
-        for (Enemy enemy : enemies) {
-            if (!enemy.active)
-                continue;
-            int eCol = (enemy.x + tileSize / 2) / tileSize;
-            int eRow = (enemy.y + tileSize / 2) / tileSize;
-            if (eCol == col && eRow == row) {
+        for (Entity e : grid.at(col, row)) {
+            if (e instanceof Enemy enemy && enemy.active)
                 return enemy;
-            }
         }
         return null;
     }
 
-    private boolean isHazardCodeWalkable(int code) {
-        return (code >= 60 && code <= 69) || (code >= 70 && code <= 79) || (code >= 100 && code <= 114);
-    }
-
-    private boolean isHazardCodeWalkableSafe(String raw) {
-        if (raw == null)
-            return false;
-        try {
-            return isHazardCodeWalkable(Integer.parseInt(raw));
-        } catch (NumberFormatException ex) {
-            return false;
-        }
-    }
-
     private void checkKeyWinOrDestruction() {
-        int tileSize = gp.tileSize;
+        int tileSize = world.tileSize;
 
-        for (Key key : new ArrayList<>(keys)) {
+        for (int i = 0; i < keys.size(); i++) {
+            Key key = keys.get(i);
             if (!key.active)
                 continue;
 
-            Rectangle keyBox = key.getWorldHitbox();
-
             // Win: Key overlaps Chest
             for (Entity e : worldEntities) {
                 if (e instanceof Chest chest && chest.active) {
-                    if (keyBox.intersects(chest.getWorldHitbox())) {
+                    if (key.overlaps(chest)) {
                         key.active = false;
-                        System.out.println("Key reached the treasure chest!");
-                        gp.triggerWin();
+                        GameLog.info("Key reached the treasure chest!");
+                        world.triggerWin();
                         return;
                     }
                 }
@@ -458,10 +576,12 @@ public class EntityManager {
                 int spikeRow = (s.y + tileSize / 2) / tileSize;
 
                 if (spikeCol == col && spikeRow == row) {
-                    System.out.println("Key destroyed by hazard!");
+                    GameLog.info("Key destroyed by hazard!");
                     key.active = false;
                     worldEntities.remove(key);
-                    keys.remove(key);
+                    keys.remove(i--);
+                    grid.remove(key);
+                    renderQueue.remove(key);
                     break; // only destroy once
                 }
             }
@@ -471,60 +591,11 @@ public class EntityManager {
     // =========================================================
     // DRAWING
     // =========================================================
-    public void draw(Graphics2D g2, int activeCharacterIndex) {
-        ArrayList<Entity> all = new ArrayList<>();
-        all.addAll(spikes);
-        all.addAll(buttons);
-        all.addAll(worldEntities);
-        all.addAll(characters);
-        all.addAll(enemies);
-
-        // Layer Priority
-        for (Entity e : all) {
-            if (e instanceof Spike || e instanceof Button)
-                e.renderLayer = 0; // ground layer
-            else if (e instanceof Box)
-                e.renderLayer = 1; // mid layer
-            else if (e instanceof PlayableCharacter)
-                e.renderLayer = 2; // top layer
-            else
-                e.renderLayer = 1; // default
-        }
-
-        // sort primarily by layer, then by y-bottom
-        all.sort((a, b) -> {
-            int layerDiff = Integer.compare(a.renderLayer, b.renderLayer);
-            if (layerDiff != 0)
-                return layerDiff;
-            int aBottom = a.y + a.hitbox.y + a.hitbox.height;
-            int bBottom = b.y + b.hitbox.y + b.hitbox.height;
-            return Integer.compare(aBottom, bBottom);
-        });
-
-        for (Entity e : all) {
-            if (e instanceof PlayableCharacter pc) {
-                boolean isActive = (activeCharacterIndex >= 0 && activeCharacterIndex < characters.size())
-                        && pc == characters.get(activeCharacterIndex);
-                if (isActive) {
-                    g2.setColor(Color.YELLOW);
-                    g2.fillRect(pc.x + 4, pc.y + gp.tileSize - 6, gp.tileSize - 8, 3);
-                }
-                pc.draw(g2, gp.tileSize, isActive);
-            } else if (e instanceof Box box)
-                box.draw(g2, gp.tileSize);
-            else if (e instanceof Enemy en) {
-                if (!en.active)
-                    continue; // skip dead enemies
-                en.draw(g2, gp.tileSize);
-            } else if (e instanceof Button b)
-                b.draw(g2, gp.tileSize);
-            else if (e instanceof Spike s)
-                s.draw(g2, gp.tileSize);
-            else if (e instanceof Key key)
-                key.draw(g2, gp.tileSize);
-            else if (e instanceof Chest chest)
-                chest.draw(g2, gp.tileSize);
-
-        }
+    /** Emits draw commands for the entities inside the given world-space view rectangle. */
+    public void draw(RenderFrame frame, int activeCharacterIndex, int viewX, int viewY, int viewWidth, int viewHeight) {
+        PlayableCharacter highlighted = (activeCharacterIndex >= 0 && activeCharacterIndex < characters.size())
+                ? characters.get(activeCharacterIndex)
+                : null;
+        renderQueue.draw(frame, world.tileSize, highlighted, viewX, viewY, viewWidth, viewHeight);
     }
 }
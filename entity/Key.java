@@ -1,8 +1,9 @@
 package entity;
 
-import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 
+import main.RenderFrame;
+
 public class Key extends Entity {
     private BufferedImage sprite;
 
@@ -17,27 +18,8 @@ public class Key extends Entity {
     }
 
     @Override
-    public void interpolateToTarget() {
-        if (movingToTarget) {
-            if (x < targetX)
-                x += speed;
-            if (x > targetX)
-                x -= speed;
-            if (y < targetY)
-                y += speed;
-            if (y > targetY)
-                y -= speed;
-
-            if (Math.abs(x - targetX) < speed && Math.abs(y - targetY) < speed) {
-                x = targetX;
-                y = targetY;
-                movingToTarget = false;
-            }
-        }
-    }
-
-    public void draw(Graphics2D g2, int tileSize) {
+    public void draw(RenderFrame frame, int tileSize) {
         if (sprite != null)
-            drawAt(g2, sprite, tileSize);
+            drawAt(frame, sprite, tileSize);
     }
 }
@@ -1,11 +1,12 @@
 package entity;
 
-import main.GamePanel;
+import main.GameLog;
+import main.World;
 
 public class Knight extends PlayableCharacter {
 
-    public Knight(int x, int y, GamePanel gp) {
-        super("knight", x, y, gp);
+    public Knight(int x, int y, World world) {
+        super("knight", x, y, world);
     }
 
     /** Kills enemy on contact instead of dying. */
@@ -13,9 +14,9 @@ public class Knight extends PlayableCharacter {
         for (Enemy e : entityM.enemies) {
             if (!e.active)
                 continue;
-            if (this.getWorldHitbox().intersects(e.getWorldHitbox())) {
+            if (this.overlaps(e)) {
                 e.active = false; // enemy dies
-                System.out.println("⚔️ Knight killed an enemy!");
+                GameLog.info("⚔️ Knight killed an enemy!");
             }
         }
     }
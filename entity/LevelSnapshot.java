@@ -0,0 +1,73 @@
+package entity;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * State of a level right after it was loaded. Restoring it copies positions,
+ * flags, button/spike state and enemy AI state back into the same entity
+ * objects, so a restart needs no map parsing or sprite loading.
+ */
+public class LevelSnapshot {
+    // every entity of the level, and a copy of its state at capture time
+    private final ArrayList<Entity> entities = new ArrayList<>();
+    private final ArrayList<Entity> saved = new ArrayList<>();
+
+    // list membership (keys can be removed from the level when destroyed)
+    private final ArrayList<PlayableCharacter> characters;
+    private final ArrayList<Entity> worldEntities;
+    private final ArrayList<Enemy> enemies;
+    private final ArrayList<Button> buttons;
+    private final ArrayList<Spike> spikes;
+    private final ArrayList<Key> keys;
+
+    private final int activeIndex;
+
+    private LevelSnapshot(EntityManager entityM, Player player) {
+        characters = new ArrayList<>(entityM.characters);
+        worldEntities = new ArrayList<>(entityM.worldEntities);
+        enemies = new ArrayList<>(entityM.enemies);
+        buttons = new ArrayList<>(entityM.buttons);
+        spikes = new ArrayList<>(entityM.spikes);
+        keys = new ArrayList<>(entityM.keys);
+        activeIndex = player.getActiveIndex();
+
+        addAll(characters);
+        addAll(worldEntities);
+        addAll(enemies);
+        addAll(buttons);
+        addAll(spikes);
+    }
+
+    public static LevelSnapshot capture(EntityManager entityM, Player player) {
+        return new LevelSnapshot(entityM, player);
+    }
+
+    private void addAll(List<? extends Entity> list) {
+        for (Entity e : list) {
+            entities.add(e);
+            saved.add(e.copyState());
+        }
+    }
+
+    public void restore(EntityManager entityM, Player player) {
+        for (int i = 0; i < entities.size(); i++)
+            entities.get(i).restoreState(saved.get(i));
+
+        restoreList(entityM.characters, characters);
+        restoreList(entityM.worldEntities, worldEntities);
+        restoreList(entityM.enemies, enemies);
+        restoreList(entityM.buttons, buttons);
+        restoreList(entityM.spikes, spikes);
+        restoreList(entityM.keys, keys);
+        player.setActiveIndex(activeIndex);
+
+        entityM.rebuildGrid();
+        entityM.rebuildRenderQueue();
+    }
+
+    private static <T> void restoreList(ArrayList<T> target, ArrayList<T> source) {
+        target.clear();
+        target.addAll(source);
+    }
+}
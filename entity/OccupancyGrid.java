@@ -0,0 +1,88 @@
+package entity;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tile-bucketed index of entities, keyed by the tile each entity is heading to
+ * (targetX/targetY). Answers "what is on tile (col,row)" without scanning every
+ * entity. Call {@link #update(Entity)} whenever an entity's target changes.
+ * {@link #blockerVersion()} changes whenever a path blocker (box or other solid
+ * prop) is indexed, moved or removed, so path caches know when to recompute.
+ */
+public class OccupancyGrid {
+    private final int cols, rows, tileSize;
+    private final ArrayList<Entity>[] cells;
+    private int blockerVersion = 0;
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public OccupancyGrid(int cols, int rows, int tileSize) {
+        this.cols = cols;
+        this.rows = rows;
+        this.tileSize = tileSize;
+        this.cells = new ArrayList[cols * rows];
+    }
+
+    public void clear() {
+        for (ArrayList<Entity> bucket : cells) {
+            if (bucket != null) {
+                for (Entity e : bucket)
+                    e.gridCell = -1;
+                bucket.clear();
+            }
+        }
+        blockerVersion++;
+    }
+
+    public void add(Entity e) {
+        int cell = cellOf(e);
+        e.gridCell = cell;
+        if (cell < 0)
+            return;
+        if (blocksPaths(e))
+            blockerVersion++;
+        if (cells[cell] == null)
+            cells[cell] = new ArrayList<>(2);
+        cells[cell].add(e);
+    }
+
+    public void remove(Entity e) {
+        if (e.gridCell >= 0 && cells[e.gridCell] != null && cells[e.gridCell].remove(e) && blocksPaths(e))
+            blockerVersion++;
+        e.gridCell = -1;
+    }
+
+    /** Moves the entity to the bucket of its current target tile. */
+    public void update(Entity e) {
+        if (cellOf(e) == e.gridCell)
+            return;
+        remove(e);
+        add(e);
+    }
+
+    /** Entities whose target is the given tile (empty if out of bounds). */
+    public List<Entity> at(int col, int row) {
+        if (col < 0 || col >= cols || row < 0 || row >= rows)
+            return Collections.emptyList();
+        ArrayList<Entity> bucket = cells[row * cols + col];
+        return bucket != null ? bucket : Collections.emptyList();
+    }
+
+    public int blockerVersion() {
+        return blockerVersion;
+    }
+
+    /** Entities that stop an enemy path: everything except enemies, characters and pickups. */
+    public static boolean blocksPaths(Entity e) {
+        return !(e instanceof Enemy || e instanceof PlayableCharacter || e instanceof Key || e instanceof Chest);
+    }
+
+    private int cellOf(Entity e) {
+        int col = Math.floorDiv(e.targetX + tileSize / 2, tileSize);
+        int row = Math.floorDiv(e.targetY + tileSize / 2, tileSize);
+        if (col < 0 || col >= cols || row < 0 || row >= rows)
+            return -1;
+        return row * cols + col;
+    }
+}
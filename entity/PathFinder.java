@@ -0,0 +1,195 @@
+package entity;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import main.World;
+import tile.MapCode;
+
+/**
+ * Shared enemy pathfinding on the tile grid. For each target tile it keeps a
+ * flow field: the BFS step distance from every nearby tile to the target,
+ * walking around solid tiles and path blockers (boxes). A field is reused by
+ * every enemy heading to the same tile and is only recomputed when the target
+ * is new or the occupancy grid's blocker version changed. Chase fields stop at
+ * MAX_DISTANCE steps; home fields cover the whole map, so an enemy lured any
+ * distance away can always walk back.
+ *
+ * The cache itself is not thread-safe. Before the enemy decide phase the fields
+ * it may read are pinned from one thread; the phase then only reads pinned
+ * fields and can run on several threads.
+ */
+public class PathFinder {
+    // direction index -> tile delta (right, left, down, up)
+    public static final int[] DX = { 1, -1, 0, 0 };
+    public static final int[] DY = { 0, 0, 1, -1 };
+
+    static final int UNREACHED = -1;
+    static final int MAX_DISTANCE = 32; // chase fields stop spreading this many steps from the target
+    static final int MAX_FIELDS = 64; // least recently used fields are dropped beyond this
+
+    private final World world;
+    private final OccupancyGrid grid;
+    private final int cols, rows;
+    private final int[] queue; // BFS work queue shared by all fields
+
+    private final Map<Integer, FlowField> fields = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, FlowField> eldest) {
+            return size() > MAX_FIELDS;
+        }
+    };
+    private final Map<Integer, FlowField> pinned = new HashMap<>(); // this tick's fields, read-only while pinned
+
+    private static final class FlowField {
+        final int[] dist;
+        final int range;
+        int version;
+
+        FlowField(int size, int range) {
+            dist = new int[size];
+            this.range = range;
+        }
+    }
+
+    public PathFinder(World world, OccupancyGrid grid) {
+        this.world = world;
+        this.grid = grid;
+        this.cols = world.maxWorldCol;
+        this.rows = world.maxWorldRow;
+        this.queue = new int[cols * rows];
+    }
+
+    /**
+     * Brings the field toward the target tile up to date and pins it until
+     * unpinAll, so shortestSteps can read it without touching the cache. Called
+     * from one thread for every target the next decide phase may path to.
+     */
+    public void pin(int targetCol, int targetRow, boolean unlimited) {
+        if (!inBounds(targetCol, targetRow))
+            return;
+        int range = unlimited ? Integer.MAX_VALUE : MAX_DISTANCE;
+        int key = key(targetCol, targetRow, range);
+        if (!pinned.containsKey(key))
+            pinned.put(key, field(targetCol, targetRow, range));
+    }
+
+    /** Releases the fields pinned for the last decide phase. */
+    public void unpinAll() {
+        pinned.clear();
+    }
+
+    /**
+     * Writes the direction indices (into DX/DY) of every shortest step from
+     * (col,row) toward the target tile into steps, preferred first, and returns
+     * how many there are: 0 if there is no path within range (MAX_DISTANCE
+     * steps, or the whole map if unlimited). Among equal steps the axis with the
+     * larger remaining distance goes first. Reads only the pinned field, so it
+     * is safe to call from several threads.
+     */
+    public int shortestSteps(int col, int row, int targetCol, int targetRow, boolean unlimited, int[] steps) {
+        if (!inBounds(col, row) || !inBounds(targetCol, targetRow))
+            return 0;
+        FlowField f = pinned.get(key(targetCol, targetRow, unlimited ? Integer.MAX_VALUE : MAX_DISTANCE));
+        if (f == null)
+            throw new IllegalStateException("no pinned flow field toward " + targetCol + "," + targetRow);
+        int here = f.dist[row * cols + col];
+        if (here <= 0)
+            return 0; // unreachable, or already there
+
+        int count = 0;
+        boolean horizontalFirst = Math.abs(targetCol - col) >= Math.abs(targetRow - row);
+        for (int i = 0; i < 4; i++) {
+            int dir = horizontalFirst ? i : (i + 2) & 3;
+            int nc = col + DX[dir];
+            int nr = row + DY[dir];
+            if (inBounds(nc, nr) && f.dist[nr * cols + nc] == here - 1)
+                steps[count++] = dir;
+        }
+        return count;
+    }
+
+    /**
+     * True if an enemy other than the mover is heading to the tile. Enemies skip
+     * such steps in favour of an equally short one.
+     */
+    public boolean enemyHeadingTo(Entity mover, int col, int row) {
+        for (Entity e : grid.at(col, row)) {
+            if (e != mover && e.active && e instanceof Enemy)
+                return true;
+        }
+        return false;
+    }
+
+    /** Drops every cached field (map reloaded). */
+    public void clear() {
+        fields.clear();
+        pinned.clear();
+    }
+
+    private FlowField field(int targetCol, int targetRow, int range) {
+        int key = key(targetCol, targetRow, range);
+        FlowField f = fields.get(key);
+        if (f == null) {
+            f = new FlowField(cols * rows, range);
+            f.version = grid.blockerVersion() - 1; // force the first build
+            fields.put(key, f);
+        }
+        if (f.version != grid.blockerVersion()) {
+            build(f, targetCol, targetRow);
+            f.version = grid.blockerVersion();
+        }
+        return f;
+    }
+
+    /** Breadth-first fill outward from the target over tiles an enemy can stand on. */
+    private void build(FlowField f, int targetCol, int targetRow) {
+        int[] dist = f.dist;
+        Arrays.fill(dist, UNREACHED);
+        int head = 0, tail = 0;
+        int start = targetRow * cols + targetCol;
+        dist[start] = 0;
+        queue[tail++] = start;
+
+        while (head < tail) {
+            int cell = queue[head++];
+            int d = dist[cell];
+            if (d >= f.range)
+                continue;
+            int col = cell % cols;
+            int row = cell / cols;
+            for (int dir = 0; dir < 4; dir++) {
+                int nc = col + DX[dir];
+                int nr = row + DY[dir];
+                if (!inBounds(nc, nr))
+                    continue;
+                int next = nr * cols + nc;
+                if (dist[next] != UNREACHED || !passable(nc, nr))
+                    continue;
+                dist[next] = d + 1;
+                queue[tail++] = next;
+            }
+        }
+    }
+
+    /** Same tile rule as EntityManager.canMoveTo, with every path blocker treated as solid. */
+    private boolean passable(int col, int row) {
+        if (world.tileM.isTileCollidable(col, row) && !MapCode.is(world.tileM.mapCodes[col][row], MapCode.WALKABLE))
+            return false;
+        for (Entity e : grid.at(col, row)) {
+            if (e.active && OccupancyGrid.blocksPaths(e))
+                return false;
+        }
+        return true;
+    }
+
+    private int key(int targetCol, int targetRow, int range) {
+        return (targetRow * cols + targetCol) * 2 + (range == MAX_DISTANCE ? 0 : 1);
+    }
+
+    private boolean inBounds(int col, int row) {
+        return col >= 0 && col < cols && row >= 0 && row < rows;
+    }
+}
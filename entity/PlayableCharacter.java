@@ -1,19 +1,19 @@
 package entity;
 
-import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
-import java.io.InputStream;
 
-import main.GamePanel;
+import main.AssetCache;
+import main.World;
 import main.KeyHandler;
+import main.RenderFrame;
 
 public class PlayableCharacter extends Entity {
     private String role;
     private int idleAnimSpeed, moveAnimSpeed;
     private BufferedImage l1, l2, l3, r1, r2, r3;
 
-    public PlayableCharacter(String role, int x, int y, GamePanel gp) {
-        super(gp);
+    public PlayableCharacter(String role, int x, int y, World world) {
+        super(world);
         this.role = role;
         this.x = x;
         this.y = y;
@@ -23,11 +23,12 @@ public class PlayableCharacter extends Entity {
         getImage();
         // initialize so character is on exact tile grid:
         // Assuming tile size exists later; if not, you will set in
-        // Player.setupCharacters() after gp is available.
+        // Player.setupCharacters() after world is available.
         this.targetX = x;
         this.targetY = y;
         this.movingToTarget = false;
         this.pushable = false;
+        this.renderLayer = RenderQueue.TOP;
     }
 
     private void setAnimSpeed() {
@@ -51,27 +52,16 @@ public class PlayableCharacter extends Entity {
         }
     }
 
-    private BufferedImage loadImage(String path) {
-        try (InputStream is = getClass().getResourceAsStream(path)) {
-            if (is == null) {
-                System.err.println("Error 404: Resource not found: " + path);
-                return null;
-            }
-            return javax.imageio.ImageIO.read(is);
-        } catch (Exception e) {
-            e.printStackTrace();
-            return null;
-        }
-    }
-
     private void getImage() {
-        String base = "/Resource/playableCharacter/" + this.role + "/";
-        this.l1 = loadImage(base + this.role + "_L_1.png");
-        this.l2 = loadImage(base + this.role + "_L_2.png");
-        this.l3 = loadImage(base + this.role + "_L_3.png");
-        this.r1 = loadImage(base + this.role + "_R_1.png");
-        this.r2 = loadImage(base + this.role + "_R_2.png");
-        this.r3 = loadImage(base + this.role + "_R_3.png");
+        // frames are decoded once per process and shared by every character of a role
+        String base = "/Resource/playableCharacter/" + this.role + "/" + this.role;
+        int size = (world != null) ? world.tileSize : 48;
+        this.l1 = AssetCache.image(base + "_L_1.png", size);
+        this.l2 = AssetCache.image(base + "_L_2.png", size);
+        this.l3 = AssetCache.image(base + "_L_3.png", size);
+        this.r1 = AssetCache.image(base + "_R_1.png", size);
+        this.r2 = AssetCache.image(base + "_R_2.png", size);
+        this.r3 = AssetCache.image(base + "_R_3.png", size);
     }
 
     /**
@@ -111,7 +101,12 @@ public class PlayableCharacter extends Entity {
         }
     }
 
-    public void draw(Graphics2D g2, int tileSize, boolean isActive) {
+    @Override
+    public void draw(RenderFrame frame, int tileSize) {
+        draw(frame, tileSize, false);
+    }
+
+    public void draw(RenderFrame frame, int tileSize, boolean isActive) {
         BufferedImage img = null;
         switch (this.direction) {
             case "L":
@@ -124,10 +119,10 @@ public class PlayableCharacter extends Entity {
 
         // Draw character sprite
         if (img != null) {
-            g2.drawImage(img, x, y, tileSize, tileSize, null);
+            frame.drawImage(img, x, y, tileSize, tileSize);
         } else {
-            g2.setColor(java.awt.Color.RED);
-            g2.fillRect(x, y, tileSize, tileSize);
+            frame.setColor(java.awt.Color.RED);
+            frame.fillRect(x, y, tileSize, tileSize);
         }
     }
 
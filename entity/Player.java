@@ -1,22 +1,26 @@
 package entity;
 
-import main.GamePanel;
+import main.World;
 import main.KeyHandler;
+import main.GameLog;
 import java.util.ArrayList;
 
 public class Player extends Entity {
     public final EntityManager entityM;
-    final GamePanel gp;
+    final World world;
     private final KeyHandler keyH;
     private int currentIndex = 0;
 
-    public Player(GamePanel gp, KeyHandler keyH, EntityManager entityM) {
-        this.gp = gp;
+    public Player(World world, KeyHandler keyH, EntityManager entityM) {
+        this.world = world;
         this.keyH = keyH;
         this.entityM = entityM;
 
         if (entityM.characters.isEmpty()) {
-            entityM.characters.add(new PlayableCharacter("knight", gp.tileSize, gp.tileSize, gp));
+            PlayableCharacter fallback = new PlayableCharacter("knight", world.tileSize, world.tileSize, world);
+            entityM.characters.add(fallback);
+            entityM.grid.add(fallback);
+            entityM.renderQueue.add(fallback);
         }
     }
 
@@ -28,7 +32,7 @@ public class Player extends Entity {
             currentIndex = (currentIndex + 1) % entityM.characters.size();
             active = entityM.characters.get(currentIndex);
             keyH.switchCharacter = false;
-            System.out.println("Now controlling: " + active.getRole());
+            GameLog.info("Now controlling: {}", active.getRole());
         }
 
         // Movement input (disabled if Wizard is in teleport mode)
@@ -80,7 +84,7 @@ public class Player extends Entity {
     }
 
     private void handleHazardsAndButtons(Entity active) {
-        gp.hazardM.update(entityM.getAllEntities());
+        world.hazardM.update();
 
         for (Spike s : entityM.spikes) {
             if (s.checkAndHurt(active)) {
@@ -107,4 +111,8 @@ public class Player extends Entity {
     public int getActiveIndex() {
         return currentIndex;
     }
+
+    public void setActiveIndex(int index) {
+        this.currentIndex = index;
+    }
 }
@@ -0,0 +1,133 @@
+package entity;
+
+import java.awt.Color;
+
+import main.RenderFrame;
+
+/**
+ * Persistent draw order for the entities of a level. Entities live in one
+ * bucket per render layer, and each bucket is kept sorted by the bottom of the
+ * hitbox (ties keep insertion order). When an entity moves it is shifted to its
+ * new place with insertion-sort steps, so a frame only walks the buckets and
+ * never allocates or sorts.
+ */
+public class RenderQueue {
+    // ===== Layers =====
+    public static final int GROUND = 0; // buttons, spikes
+    public static final int MID = 1; // boxes, keys, chests, enemies
+    public static final int TOP = 2; // playable characters
+    public static final int LAYERS = 3;
+
+    private final Entity[][] buckets = new Entity[LAYERS][16];
+    private final int[] sizes = new int[LAYERS];
+    private int nextOrder = 0;
+
+    public void clear() {
+        for (int layer = 0; layer < LAYERS; layer++) {
+            Entity[] bucket = buckets[layer];
+            for (int i = 0; i < sizes[layer]; i++) {
+                bucket[i].renderQueue = null;
+                bucket[i].renderSlot = -1;
+                bucket[i] = null;
+            }
+            sizes[layer] = 0;
+        }
+        nextOrder = 0;
+    }
+
+    /** Adds the entity to its layer (no-op if it is already queued). */
+    public void add(Entity e) {
+        if (e.renderQueue == this)
+            return;
+        int layer = layerOf(e);
+        Entity[] bucket = buckets[layer];
+        if (sizes[layer] == bucket.length) {
+            Entity[] grown = new Entity[bucket.length * 2];
+            System.arraycopy(bucket, 0, grown, 0, bucket.length);
+            buckets[layer] = bucket = grown;
+        }
+        e.renderQueue = this;
+        e.storePrevious(); // no motion to blend from yet
+        e.renderOrder = nextOrder++;
+        e.renderSlot = sizes[layer]++;
+        bucket[e.renderSlot] = e;
+        moved(e);
+    }
+
+    public void remove(Entity e) {
+        if (e.renderQueue != this)
+            return;
+        int layer = layerOf(e);
+        Entity[] bucket = buckets[layer];
+        int last = --sizes[layer];
+        for (int i = e.renderSlot; i < last; i++) {
+            bucket[i] = bucket[i + 1];
+            bucket[i].renderSlot = i;
+        }
+        bucket[last] = null;
+        e.renderQueue = null;
+        e.renderSlot = -1;
+    }
+
+    /** Restores the sort order after the entity's y position changed. */
+    public void moved(Entity e) {
+        if (e.renderQueue != this)
+            return;
+        Entity[] bucket = buckets[layerOf(e)];
+        int size = sizes[layerOf(e)];
+        int slot = e.renderSlot;
+        while (slot > 0 && before(e, bucket[slot - 1])) {
+            bucket[slot] = bucket[slot - 1];
+            bucket[slot].renderSlot = slot;
+            slot--;
+        }
+        while (slot < size - 1 && before(bucket[slot + 1], e)) {
+            bucket[slot] = bucket[slot + 1];
+            bucket[slot].renderSlot = slot;
+            slot++;
+        }
+        bucket[slot] = e;
+        e.renderSlot = slot;
+    }
+
+    /**
+     * Emits every queued entity that overlaps the view rectangle, back to front,
+     * tagged with its motion since the previous tick for interpolation.
+     * The highlighted character gets the selection bar and its active sprite.
+     */
+    public void draw(RenderFrame frame, int tileSize, PlayableCharacter highlighted,
+            int viewX, int viewY, int viewWidth, int viewHeight) {
+        for (int layer = 0; layer < LAYERS; layer++) {
+            Entity[] bucket = buckets[layer];
+            for (int i = 0; i < sizes[layer]; i++) {
+                Entity e = bucket[i];
+                // sprites are drawn tile-sized somewhere between (prevX, prevY) and (x, y)
+                if (Math.max(e.x, e.prevX) + tileSize <= viewX || Math.min(e.x, e.prevX) >= viewX + viewWidth
+                        || Math.max(e.y, e.prevY) + tileSize <= viewY || Math.min(e.y, e.prevY) >= viewY + viewHeight)
+                    continue;
+                frame.setMotion(e.prevX - e.x, e.prevY - e.y);
+                if (e == highlighted) {
+                    frame.setColor(Color.YELLOW);
+                    frame.fillRect(e.x + 4, e.y + tileSize - 6, tileSize - 8, 3);
+                    highlighted.draw(frame, tileSize, true);
+                } else {
+                    e.draw(frame, tileSize);
+                }
+            }
+        }
+        frame.setMotion(0, 0);
+    }
+
+    private static int layerOf(Entity e) {
+        return Math.max(0, Math.min(LAYERS - 1, e.renderLayer));
+    }
+
+    private static int sortKey(Entity e) {
+        return e.y + e.hitbox.y + e.hitbox.height;
+    }
+
+    private static boolean before(Entity a, Entity b) {
+        int ka = sortKey(a), kb = sortKey(b);
+        return ka < kb || (ka == kb && a.renderOrder < b.renderOrder);
+    }
+}
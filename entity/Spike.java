@@ -2,22 +2,23 @@ package entity;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
-import java.io.IOException;
-import javax.imageio.ImageIO;
-import main.GamePanel;
+import main.AssetCache;
+import main.RenderFrame;
+import main.World;
 
 public class Spike extends Entity {
     private BufferedImage spikeUp, spikeDown;
     private boolean active = true; // whether spike is extended
     private int id; // map id or reference if you use it
 
-    public Spike(int x, int y, int id, boolean activeInitially, GamePanel gp) {
-        super(gp);
+    public Spike(int x, int y, int id, boolean activeInitially, World world) {
+        super(world);
         this.x = x;
         this.y = y;
         this.id = id;
         this.active = activeInitially;
         this.hitbox = new Rectangle(8, 8, 16, 16);
+        this.renderLayer = RenderQueue.GROUND;
         loadSprites();
     }
 
@@ -39,16 +40,11 @@ public class Spike extends Entity {
         if (e instanceof Thief)
             return false;
 
-        Rectangle r = e.getWorldHitbox();
-        Rectangle spikeBox = this.getWorldHitbox();
-
         // Small tolerance so edge doesn't misfire
         int inset = 2;
-        spikeBox = new Rectangle(spikeBox.x + inset, spikeBox.y + inset,
-                Math.max(0, spikeBox.width - inset * 2),
-                Math.max(0, spikeBox.height - inset * 2));
-
-        if (r.intersects(spikeBox)) {
+        if (e.overlapsRect(hitboxLeft() + inset, hitboxTop() + inset,
+                Math.max(0, hitbox.width - inset * 2),
+                Math.max(0, hitbox.height - inset * 2))) {
             trigger(e);
             return true;
         }
@@ -57,28 +53,32 @@ public class Spike extends Entity {
 
     public void trigger(Entity mover) {
         if (mover instanceof PlayableCharacter) {
-            GamePanel gp = mover.getGamePanel();
-            if (gp != null && gp.gameState == GamePanel.PLAY_STATE) {
+            World world = mover.getWorld();
+            if (world != null && world.gameState == World.PLAY_STATE) {
                 // Just trigger game over state — do NOT restart yet.
-                gp.triggerGameOver();
+                world.triggerGameOver();
             }
         }
     }
 
     private void loadSprites() {
         if (spikeUp == null || spikeDown == null) {
-            try {
-                spikeUp = ImageIO.read(getClass().getResourceAsStream("/Resource/tiles/spike_active.png"));
-                spikeDown = ImageIO.read(getClass().getResourceAsStream("/Resource/tiles/spike_inactive.png"));
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
+            int size = (world != null) ? world.tileSize : 48;
+            spikeUp = AssetCache.image("/Resource/tiles/spike_active.png", size);
+            spikeDown = AssetCache.image("/Resource/tiles/spike_inactive.png", size);
         }
     }
 
-    public void draw(Graphics2D g2, int tileSize) {
+    @Override
+    protected void restoreState(Entity saved) {
+        super.restoreState(saved);
+        this.active = ((Spike) saved).active; // the spike's own extended flag
+    }
+
+    @Override
+    public void draw(RenderFrame frame, int tileSize) {
         BufferedImage img = active ? spikeUp : spikeDown;
         if (img != null)
-            g2.drawImage(img, x, y, tileSize, tileSize, null);
+            frame.drawImage(img, x, y, tileSize, tileSize);
     }
 }
@@ -1,11 +1,11 @@
 package entity;
 
-import main.GamePanel;
+import main.World;
 
 public class Thief extends PlayableCharacter {
 
-    public Thief(int x, int y, GamePanel gp) {
-        super("thief", x, y, gp);
+    public Thief(int x, int y, World world) {
+        super("thief", x, y, world);
     }
 
     /** Thief ignores spikes entirely. */
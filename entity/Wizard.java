@@ -1,12 +1,11 @@
 package entity;
 
 import java.awt.Color;
-import java.awt.Graphics2D;
-import java.awt.Rectangle;
-import java.util.List;
 
-import main.GamePanel;
+import main.World;
 import main.KeyHandler;
+import main.RenderFrame;
+import main.GameLog;
 
 public class Wizard extends PlayableCharacter {
 
@@ -18,15 +17,25 @@ public class Wizard extends PlayableCharacter {
     private int cursorCol, cursorRow;
     private int centerCol, centerRow;
     private static final int TELEPORT_RADIUS = 2; // easy to tweak later
+    private static final Color RADIUS_COLOR = new Color(0, 255, 255, 60);
+    private static final Color TARGET_CURSOR_COLOR = new Color(0, 255, 0, 120);
+    private static final Color DESTINATION_CURSOR_COLOR = new Color(255, 255, 0, 120);
 
-    public Wizard(int x, int y, GamePanel gp) {
-        super("wizard", x, y, gp);
+    public Wizard(int x, int y, World world) {
+        super("wizard", x, y, world);
     }
 
     public boolean isTeleportMode() {
         return teleportSelectingTarget || teleportSelectingDestination;
     }
 
+    /** Leaves teleport mode without moving anything (same as pressing escape). */
+    public void cancelTeleport() {
+        teleportSelectingTarget = false;
+        teleportSelectingDestination = false;
+        selectedEntity = null;
+    }
+
     public boolean isSelectingTarget() {
         return teleportSelectingTarget;
     }
@@ -36,7 +45,7 @@ public class Wizard extends PlayableCharacter {
     }
 
     public void handleTeleportInput(KeyHandler keyH, EntityManager entityM) {
-        int tileSize = gp.tileSize;
+        int tileSize = world.tileSize;
 
         // --- ENTER TELEPORT MODE ---
         if (!isTeleportMode() && keyH.teleportPress) {
@@ -48,7 +57,7 @@ public class Wizard extends PlayableCharacter {
             cursorCol = centerCol;
             cursorRow = centerRow;
             selectedEntity = null;
-            System.out.println("Wizard entered teleport target selection.");
+            GameLog.info("Wizard entered teleport target selection.");
             return;
         }
 
@@ -58,11 +67,9 @@ public class Wizard extends PlayableCharacter {
 
         // --- CANCEL (ESC) ---
         if (keyH.escapePress) {
-            teleportSelectingTarget = false;
-            teleportSelectingDestination = false;
-            selectedEntity = null;
+            cancelTeleport();
             keyH.escapePress = false;
-            System.out.println("Teleport canceled.");
+            GameLog.info("Teleport canceled.");
             return;
         }
 
@@ -90,15 +97,15 @@ public class Wizard extends PlayableCharacter {
         // --- PHASE 1: SELECT TARGET ---
         if (teleportSelectingTarget && keyH.teleportPress) {
             keyH.teleportPress = false;
-            Entity found = findEntityAt(cursorCol, cursorRow, entityM.getAllEntities());
+            Entity found = entityM.entityAt(cursorCol, cursorRow);
 
             if (found != null && (found instanceof PlayableCharacter || found instanceof Box || found instanceof Key)) {
                 selectedEntity = found;
                 teleportSelectingTarget = false;
                 teleportSelectingDestination = true;
-                System.out.println("Selected entity: " + found.getClass().getSimpleName());
+                GameLog.info("Selected entity: {}", found.getClass().getSimpleName());
             } else {
-                System.out.println("No valid entity to teleport at cursor.");
+                GameLog.info("No valid entity to teleport at cursor.");
             }
             return;
         }
@@ -115,82 +122,83 @@ public class Wizard extends PlayableCharacter {
                     selectedEntity.targetX = tx;
                     selectedEntity.targetY = ty;
                     selectedEntity.movingToTarget = false;
-                    System.out.println("Teleported " + selectedEntity.getClass().getSimpleName() +
-                            " to (" + cursorCol + "," + cursorRow + ")");
+                    entityM.grid.update(selectedEntity);
+                    selectedEntity.positionChanged();
+                    selectedEntity.storePrevious(); // a jump, not a slide
+                    GameLog.info("Teleported {} to ({},{})", selectedEntity.getClass().getSimpleName(), cursorCol,
+                            cursorRow);
                 }
                 teleportSelectingDestination = false;
                 selectedEntity = null;
             } else {
-                System.out.println("Invalid teleport location.");
+                GameLog.info("Invalid teleport location.");
             }
         }
     }
 
-    /** Finds an entity at a given tile. */
-    private Entity findEntityAt(int col, int row, List<Entity> all) {
-        int tileSize = gp.tileSize;
-        Rectangle checkArea = new Rectangle(col * tileSize, row * tileSize, tileSize, tileSize);
-        for (Entity e : all) {
-            if (!e.active)
-                continue;
-            if (e.getWorldHitbox().intersects(checkArea))
-                return e;
-        }
-        return null;
-    }
-
     /** Checks if target tile is safe to teleport to. */
     private boolean isTileWalkable(int col, int row) {
-        if (col < 0 || col >= gp.maxScreenCol || row < 0 || row >= gp.maxScreenRow)
+        if (col < 0 || col >= world.maxWorldCol || row < 0 || row >= world.maxWorldRow)
             return false;
         // check for soid tiles
-        if (gp.tileM.isTileCollidable(col, row))
+        if (world.tileM.isTileCollidable(col, row))
             return false;
 
-        int tileSize = gp.tileSize;
-        int targetX = col * tileSize;
-        int targetY = row * tileSize;
-        Rectangle check = new Rectangle(targetX, targetY, tileSize, tileSize);
-
         // check for enemy
-        for (Entity e : gp.entityM.getAllEntities()) {
+        for (Entity e : world.entityM.grid.at(col, row)) {
             if (!e.active || e == this)
                 continue;
-            if (e.getWorldHitbox().intersects(check) && e.solid)
+            if (e.solid)
                 return false;
         }
 
+        int tileSize = world.tileSize;
+
         // check for hazard
-        for (Spike spike : gp.entityM.spikes) {
-            if (spike.isActive() && spike.getWorldHitbox().intersects(check))
+        for (Spike spike : world.entityM.spikes) {
+            if (spike.isActive() && spike.overlapsRect(col * tileSize, row * tileSize, tileSize, tileSize))
                 return false;
         }
         return true;
     }
 
+    @Override
+    protected void restoreState(Entity saved) {
+        super.restoreState(saved);
+        Wizard w = (Wizard) saved;
+        teleportSelectingTarget = w.teleportSelectingTarget;
+        teleportSelectingDestination = w.teleportSelectingDestination;
+        selectedEntity = w.selectedEntity;
+        cursorCol = w.cursorCol;
+        cursorRow = w.cursorRow;
+        centerCol = w.centerCol;
+        centerRow = w.centerRow;
+    }
+
     /** Draw wizard + teleport overlays. */
     @Override
-    public void draw(Graphics2D g2, int tileSize, boolean isActive) {
-        super.draw(g2, tileSize, isActive);
+    public void draw(RenderFrame frame, int tileSize, boolean isActive) {
+        super.draw(frame, tileSize, isActive);
 
         if (!isTeleportMode())
             return;
 
-        // Draw teleport radius
-        g2.setColor(new Color(0, 255, 255, 60));
+        // Draw teleport radius (tile-aligned, never interpolated)
+        frame.setMotion(0, 0);
+        frame.setColor(RADIUS_COLOR);
         for (int c = centerCol - TELEPORT_RADIUS; c <= centerCol + TELEPORT_RADIUS; c++) {
             for (int r = centerRow - TELEPORT_RADIUS; r <= centerRow + TELEPORT_RADIUS; r++) {
                 if (Math.abs(c - centerCol) + Math.abs(r - centerRow) <= TELEPORT_RADIUS) {
-                    g2.drawRect(c * tileSize, r * tileSize, tileSize, tileSize);
+                    frame.drawRect(c * tileSize, r * tileSize, tileSize, tileSize);
                 }
             }
         }
 
         // Cursor highlight
         if (teleportSelectingTarget)
-            g2.setColor(new Color(0, 255, 0, 120));
+            frame.setColor(TARGET_CURSOR_COLOR);
         else if (teleportSelectingDestination)
-            g2.setColor(new Color(255, 255, 0, 120));
-        g2.fillRect(cursorCol * tileSize, cursorRow * tileSize, tileSize, tileSize);
+            frame.setColor(DESTINATION_CURSOR_COLOR);
+        frame.fillRect(cursorCol * tileSize, cursorRow * tileSize, tileSize, tileSize);
     }
 }
@@ -0,0 +1,93 @@
+package main;
+
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.imageio.ImageIO;
+
+/**
+ * Process-wide image cache. Every resource is decoded once, converted to the
+ * screen's compatible format, and (on request) pre-scaled so entities can share
+ * the same frames instead of loading their own copies.
+ */
+public final class AssetCache {
+    private static final BufferedImage MISSING = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+
+    private static final Map<String, BufferedImage> images = new ConcurrentHashMap<>();
+    private static final Map<String, BufferedImage[]> sheets = new ConcurrentHashMap<>();
+
+    private AssetCache() {
+    }
+
+    /** Decoded image at its original size, or null if the resource is missing. */
+    public static BufferedImage image(String path) {
+        BufferedImage img = images.computeIfAbsent(path, AssetCache::decode);
+        return img == MISSING ? null : img;
+    }
+
+    /** Image pre-scaled to size x size, so drawing it at tile size is a plain copy. */
+    public static BufferedImage image(String path, int size) {
+        String key = path + "@" + size;
+        BufferedImage img = images.get(key);
+        if (img == null) {
+            // not computeIfAbsent: image(path) may itself insert into the same map
+            BufferedImage src = image(path);
+            img = (src == null) ? MISSING : scale(src, size, size);
+            BufferedImage prev = images.putIfAbsent(key, img);
+            if (prev != null)
+                img = prev;
+        }
+        return img == MISSING ? null : img;
+    }
+
+    /** Horizontal sprite sheet sliced into frameCount frames, each pre-scaled to size. */
+    public static BufferedImage[] frames(String sheetPath, int frameCount, int size) {
+        return sheets.computeIfAbsent(sheetPath + "#" + frameCount + "@" + size, key -> {
+            BufferedImage sheet = image(sheetPath);
+            if (sheet == null)
+                return null;
+            int frameWidth = sheet.getWidth() / frameCount;
+            BufferedImage[] frames = new BufferedImage[frameCount];
+            for (int i = 0; i < frameCount; i++) {
+                BufferedImage frame = sheet.getSubimage(i * frameWidth, 0, frameWidth, sheet.getHeight());
+                frames[i] = scale(frame, size, size);
+            }
+            return frames;
+        });
+    }
+
+    private static BufferedImage decode(String path) {
+        try (InputStream is = AssetCache.class.getResourceAsStream(path)) {
+            if (is == null) {
+                GameLog.warn("Error 404: Resource not found: {}", path);
+                return MISSING;
+            }
+            BufferedImage raw = ImageIO.read(is);
+            return raw == null ? MISSING : scale(raw, raw.getWidth(), raw.getHeight());
+        } catch (Exception e) {
+            GameLog.error("Could not decode {}", path, e);
+            return MISSING;
+        }
+    }
+
+    /** Copies src into a new image of the given size in the display's native format. */
+    private static BufferedImage scale(BufferedImage src, int width, int height) {
+        BufferedImage dst;
+        if (GraphicsEnvironment.isHeadless()) {
+            dst = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        } else {
+            GraphicsConfiguration gc = GraphicsEnvironment.getLocalGraphicsEnvironment()
+                    .getDefaultScreenDevice().getDefaultConfiguration();
+            dst = gc.createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+        }
+        Graphics2D g2 = dst.createGraphics();
+        g2.drawImage(src, 0, 0, width, height, null);
+        g2.dispose();
+        return dst;
+    }
+}
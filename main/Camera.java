@@ -0,0 +1,36 @@
+package main;
+
+import entity.Entity;
+
+/**
+ * Viewport into the world, in world pixels. Follows an entity and stays inside
+ * the map; maps smaller than the screen are centered instead.
+ */
+public class Camera {
+    public int x, y; // world position of the top-left corner of the screen
+    public final int width, height;
+
+    public Camera(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    /** Centers the view on the target, clamped to a map of the given pixel size. */
+    public void follow(Entity target, int worldWidth, int worldHeight) {
+        followAt(target, target.x, target.y, worldWidth, worldHeight);
+    }
+
+    /** Same, as if the target's top-left corner were at (targetX, targetY). */
+    public void followAt(Entity target, int targetX, int targetY, int worldWidth, int worldHeight) {
+        int centerX = targetX + target.hitbox.x + target.hitbox.width / 2;
+        int centerY = targetY + target.hitbox.y + target.hitbox.height / 2;
+        x = clamp(centerX - width / 2, worldWidth, width);
+        y = clamp(centerY - height / 2, worldHeight, height);
+    }
+
+    private static int clamp(int pos, int worldSize, int viewSize) {
+        if (worldSize <= viewSize)
+            return -(viewSize - worldSize) / 2; // center small maps
+        return Math.max(0, Math.min(pos, worldSize - viewSize));
+    }
+}
@@ -0,0 +1,39 @@
+package main;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lock-free triple buffer of RenderFrames between the game thread (writer)
+ * and the EDT (reader). The writer fills its private frame and swaps it with
+ * the shared "ready" slot; the reader swaps its private frame for the ready
+ * one only when a newer frame was published. Neither side ever waits, and a
+ * frame is never written while it is being painted.
+ */
+public class FrameExchange {
+    private static final int INDEX = 3;
+    private static final int FRESH = 4; // set on the ready slot when it holds an unread frame
+
+    private final RenderFrame[] frames = { new RenderFrame(), new RenderFrame(), new RenderFrame() };
+    private final AtomicInteger ready = new AtomicInteger(1);
+    private int writing = 0; // owned by the writer
+    private int reading = 2; // owned by the reader
+
+    /** Writer: the frame to fill for the next publish, already cleared. */
+    public RenderFrame beginWrite() {
+        RenderFrame frame = frames[writing];
+        frame.clear();
+        return frame;
+    }
+
+    /** Writer: makes the frame from beginWrite() the latest one. */
+    public void publish() {
+        writing = ready.getAndSet(writing | FRESH) & INDEX;
+    }
+
+    /** Reader: the most recently published frame (the same one again if nothing new). */
+    public RenderFrame latest() {
+        if ((ready.get() & FRESH) != 0)
+            reading = ready.getAndSet(reading) & INDEX;
+        return frames[reading];
+    }
+}
@@ -0,0 +1,235 @@
+package main;
+
+import java.io.PrintStream;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Game event log that never blocks the caller on console I/O. Events below
+ * the current level are dropped before anything is built; the rest go into a
+ * bounded multi-producer ring buffer (time, level, thread, message, up to three
+ * arguments) and a background thread formats and prints them: INFO and DEBUG
+ * on stdout, WARN and ERROR on stderr. A full buffer drops the event and
+ * counts it. Pending events are written at JVM exit.
+ *
+ * Messages are constant strings with "{}" for each argument, so a call site
+ * allocates nothing: GameLog.info("{} was caught by an enemy!", pc.getRole()).
+ * A Throwable argument also has its stack trace printed.
+ */
+public final class GameLog {
+    public static final int DEBUG = 0;
+    public static final int INFO = 1;
+    public static final int WARN = 2;
+    public static final int ERROR = 3;
+    public static final int OFF = 4;
+    private static final String[] NAMES = { "DEBUG", "INFO ", "WARN ", "ERROR" };
+
+    private static volatile int level = INFO;
+
+    // ===== Ring buffer (bounded MPMC queue: a slot's sequence says whose turn it is) =====
+    private static final int CAPACITY = 4096;
+    private static final int MASK = CAPACITY - 1;
+    private static final AtomicLongArray sequence = new AtomicLongArray(CAPACITY);
+    private static final long[] times = new long[CAPACITY];
+    private static final int[] levels = new int[CAPACITY];
+    private static final String[] threads = new String[CAPACITY];
+    private static final String[] messages = new String[CAPACITY];
+    private static final Object[] firstArgs = new Object[CAPACITY];
+    private static final Object[] secondArgs = new Object[CAPACITY];
+    private static final Object[] thirdArgs = new Object[CAPACITY];
+    private static final AtomicLong tail = new AtomicLong(); // next slot to claim
+    private static long head = 0; // next slot to write out, guarded by the class lock
+    private static final AtomicLong dropped = new AtomicLong();
+
+    private static final long IDLE_NANOS = 5_000_000; // writer poll interval when the buffer is empty
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("HH:mm:ss.SSS")
+            .withZone(ZoneId.systemDefault());
+
+    static {
+        for (int i = 0; i < CAPACITY; i++)
+            sequence.set(i, i);
+        Thread writer = new Thread(GameLog::writeLoop, "game-log");
+        writer.setDaemon(true);
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(GameLog::flush, "game-log-flush"));
+    }
+
+    private GameLog() {
+    }
+
+    // =============================================================
+    // LEVEL
+    // =============================================================
+    public static void setLevel(int newLevel) {
+        level = newLevel;
+    }
+
+    public static int level() {
+        return level;
+    }
+
+    public static boolean isEnabled(int eventLevel) {
+        return eventLevel >= level;
+    }
+
+    /** Level for a name such as "debug", "warn" or "off"; -1 if unknown. */
+    public static int parseLevel(String name) {
+        for (int i = 0; i < NAMES.length; i++) {
+            if (NAMES[i].trim().equalsIgnoreCase(name))
+                return i;
+        }
+        return name.equalsIgnoreCase("off") ? OFF : -1;
+    }
+
+    // =============================================================
+    // LOGGING (any thread)
+    // =============================================================
+    public static void debug(String message) {
+        log(DEBUG, message, null, null, null);
+    }
+
+    public static void debug(String message, Object arg) {
+        log(DEBUG, message, arg, null, null);
+    }
+
+    public static void info(String message) {
+        log(INFO, message, null, null, null);
+    }
+
+    public static void info(String message, Object arg) {
+        log(INFO, message, arg, null, null);
+    }
+
+    public static void info(String message, Object arg1, Object arg2) {
+        log(INFO, message, arg1, arg2, null);
+    }
+
+    public static void info(String message, Object arg1, Object arg2, Object arg3) {
+        log(INFO, message, arg1, arg2, arg3);
+    }
+
+    public static void warn(String message) {
+        log(WARN, message, null, null, null);
+    }
+
+    public static void warn(String message, Object arg) {
+        log(WARN, message, arg, null, null);
+    }
+
+    public static void warn(String message, Object arg1, Object arg2) {
+        log(WARN, message, arg1, arg2, null);
+    }
+
+    public static void warn(String message, Object arg1, Object arg2, Object arg3) {
+        log(WARN, message, arg1, arg2, arg3);
+    }
+
+    public static void error(String message, Object arg) {
+        log(ERROR, message, arg, null, null);
+    }
+
+    public static void error(String message, Object arg1, Object arg2) {
+        log(ERROR, message, arg1, arg2, null);
+    }
+
+    /** Queues the event if its level is enabled; never blocks. */
+    public static void log(int eventLevel, String message, Object arg1, Object arg2, Object arg3) {
+        if (eventLevel < level)
+            return;
+        long pos;
+        while (true) {
+            pos = tail.get();
+            long seq = sequence.getAcquire((int) pos & MASK);
+            if (seq == pos) {
+                if (tail.compareAndSet(pos, pos + 1))
+                    break;
+            } else if (seq < pos) {
+                dropped.incrementAndGet(); // full: the writer hasn't freed this slot yet
+                return;
+            }
+            // else another producer took the slot first; retry with the new tail
+        }
+        int slot = (int) pos & MASK;
+        times[slot] = System.currentTimeMillis();
+        levels[slot] = eventLevel;
+        threads[slot] = Thread.currentThread().getName();
+        messages[slot] = message;
+        firstArgs[slot] = arg1;
+        secondArgs[slot] = arg2;
+        thirdArgs[slot] = arg3;
+        sequence.setRelease(slot, pos + 1);
+    }
+
+    /** Events lost to a full buffer since startup. */
+    public static long dropped() {
+        return dropped.get();
+    }
+
+    // =============================================================
+    // WRITER
+    // =============================================================
+    private static void writeLoop() {
+        long reportedDrops = 0;
+        while (true) {
+            int written = flush();
+            long drops = dropped.get();
+            if (drops != reportedDrops) {
+                System.err.println("GameLog: " + (drops - reportedDrops) + " events dropped (buffer full)");
+                reportedDrops = drops;
+            }
+            if (written == 0)
+                LockSupport.parkNanos(IDLE_NANOS);
+        }
+    }
+
+    /** Writes out every queued event; returns how many. Called by the writer and at exit. */
+    public static synchronized int flush() {
+        int written = 0;
+        StringBuilder line = new StringBuilder(128);
+        while (true) {
+            int slot = (int) head & MASK;
+            if (sequence.getAcquire(slot) != head + 1)
+                break; // empty, or the producer is still filling the slot
+            int eventLevel = levels[slot];
+            Object arg1 = firstArgs[slot], arg2 = secondArgs[slot], arg3 = thirdArgs[slot];
+
+            line.setLength(0);
+            TIME.formatTo(Instant.ofEpochMilli(times[slot]), line);
+            line.append(' ').append(NAMES[eventLevel]).append(" [").append(threads[slot]).append("] ");
+            format(line, messages[slot], arg1, arg2, arg3);
+
+            messages[slot] = null;
+            firstArgs[slot] = secondArgs[slot] = thirdArgs[slot] = null;
+            sequence.setRelease(slot, head + CAPACITY);
+            head++;
+            written++;
+
+            // looked up per event, so System.setOut redirections still apply
+            PrintStream out = eventLevel >= WARN ? System.err : System.out;
+            out.println(line);
+            if (arg1 instanceof Throwable t)
+                t.printStackTrace(out);
+            if (arg2 instanceof Throwable t)
+                t.printStackTrace(out);
+            if (arg3 instanceof Throwable t)
+                t.printStackTrace(out);
+        }
+        return written;
+    }
+
+    /** Appends the message with each "{}" replaced by the next argument. */
+    private static void format(StringBuilder line, String message, Object arg1, Object arg2, Object arg3) {
+        int from = 0, used = 0;
+        int at;
+        while (used < 3 && (at = message.indexOf("{}", from)) >= 0) {
+            line.append(message, from, at).append(used == 0 ? arg1 : (used == 1 ? arg2 : arg3));
+            from = at + 2;
+            used++;
+        }
+        line.append(message, from, message.length());
+    }
+}
@@ -1,12 +1,15 @@
 package main;
 
 import java.awt.*;
+import java.awt.image.BufferStrategy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.locks.LockSupport;
 import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
+import entity.PlayableCharacter;
 import entity.Player;
-import tile.HazardManager;
-import tile.TileManager;
-import entity.Entity;
-import entity.EntityManager;
 
 public class GamePanel extends JPanel implements Runnable {
 
@@ -21,24 +24,49 @@ public class GamePanel extends JPanel implements Runnable {
     final int screenHeight = tileSize * maxScreenRow;
 
     // ===== Game states =====
-    public static final int PLAY_STATE = 0;
-    public static final int GAME_OVER_STATE = 1;
-    public static final int GAME_WIN_STATE = 2;
-    public int gameState = PLAY_STATE;
+    public static final int PLAY_STATE = World.PLAY_STATE;
+    public static final int GAME_OVER_STATE = World.GAME_OVER_STATE;
+    public static final int GAME_WIN_STATE = World.GAME_WIN_STATE;
 
     // ===== Core components =====
-    public TileManager tileM;
-    public EntityManager entityM;
-    public HazardManager hazardM;
-    public Player player;
     public KeyHandler keyH = new KeyHandler();
-    public String currentMapPath = "/Resource/maps/map01.txt";
-
-    final int FPS = 60;
+    public World world; // the simulation this panel draws and feeds input to
+    public Camera camera = new Camera(screenWidth, screenHeight); // moved by the game thread only
+    // frames published by the game thread after each batch of ticks, painted by the EDT
+    private final FrameExchange frames = new FrameExchange();
+
+    // ===== Loop settings =====
+    public static final int RENDER_CAPPED = 0; // one frame per simulation tick
+    public static final int RENDER_UNCAPPED = 1; // draw as often as possible
+    public static final int RENDER_VSYNC = 2; // pace frames to the display refresh rate
+    public int renderMode = RENDER_CAPPED;
+
+    // Active rendering (--active-render): the game loop draws straight into a
+    // page-flipped Canvas instead of asking Swing to repaint. null = repaint() path.
+    private Canvas canvas;
+
+    // Simulation ticks per second. Speeds, move steps and timers are counted in
+    // ticks of this rate, so it is fixed; frames are interpolated between ticks.
+    public static final int TICK_RATE = 60;
+    final int MAX_CATCH_UP_TICKS = 5;
     Thread gameThread;
 
+    // how far the clock is into the tick after the latest frame, 0..1; set by the loop
+    private volatile float renderAlpha = 1f;
+
+    // ===== Metrics (F3 toggles the HUD) =====
+    private static final Font HUD_FONT = new Font(Font.MONOSPACED, Font.PLAIN, 13);
+    public final Metrics metrics = new Metrics();
+    private volatile String[] hudLines; // built from the latest snapshot by the game thread
+    private volatile long lastPaintStart; // written by whichever thread paints
+
     public Main mainApp; // Reference to main for switching screens
 
+    // ===== Input recording =====
+    public Path recordDir; // --record: one InputLog per level attempt, null = off
+    private InputLog recording;
+    private int recordedRestarts;
+
     public GamePanel(Main mainApp) {
         this.mainApp = mainApp;
 
@@ -46,23 +74,16 @@ public class GamePanel extends JPanel implements Runnable {
         this.setBackground(Color.gray);
         this.setDoubleBuffered(true);
         this.addKeyListener(keyH);
-        keyH.setGamePanel(this);
         this.setFocusable(true);
 
         // initialize everything
-        tileM = new TileManager(this);
-        hazardM = new HazardManager(this);
-        entityM = new EntityManager(this, keyH);
-
-        // Load entities from the map
-        entityM.loadFromTileManager(tileM);
+        world = new World(keyH);
 
-        // Example linking: button #0 controls spike #0
-        hazardM.link(0, 0);
-
-        // finally, create player (uses entityM for characters)
-        player = new Player(this, keyH, entityM);
-        entityM.characters = player.entityM.characters;
+        // read on the game thread when it takes a snapshot
+        metrics.gauge("characters", () -> world.entityM.characters.size());
+        metrics.gauge("enemies", () -> world.entityM.enemies.size());
+        metrics.gauge("objects", () -> world.entityM.worldEntities.size());
+        metrics.gauge("input_lag_max_ns", keyH::takeMaxLatencyNanos);
     }
 
     // Overloaded constructor for old code (without mainApp)
@@ -70,9 +91,30 @@ public class GamePanel extends JPanel implements Runnable {
         this(null);
     }
 
+    /** Switches the game screen to active rendering; call before the panel is shown. */
+    public void enableActiveRendering() {
+        if (canvas != null)
+            return;
+        canvas = new Canvas();
+        canvas.setPreferredSize(getPreferredSize());
+        canvas.setIgnoreRepaint(true); // we paint it ourselves, Swing must not
+        canvas.setFocusable(true);
+        canvas.addKeyListener(keyH);
+        setLayout(new BorderLayout());
+        add(canvas, BorderLayout.CENTER);
+    }
+
+    /** Gives keyboard focus to whatever receives game input (panel or canvas). */
+    public void requestGameFocus() {
+        if (canvas != null)
+            canvas.requestFocusInWindow();
+        else
+            requestFocusInWindow();
+    }
+
     public void startGameThread() {
         if (gameThread == null || !gameThread.isAlive()) {
-            gameThread = new Thread(this);
+            gameThread = new Thread(this, "game");
             gameThread.start();
         }
     }
@@ -87,49 +129,51 @@ public class GamePanel extends JPanel implements Runnable {
                 e.printStackTrace();
             }
         }
+        finishRecording();
     }
 
     // =============================================================
-    // LEVEL RESTART / STATE CHANGES
+    // INPUT RECORDING
     // =============================================================
-    public void restartLevel() {
-        System.out.println("Player died! Restarting level...");
-
-        keyH.resetKeys();
-        entityM.clearAll();
-
-        tileM.resetAndLoadMap(currentMapPath);
-        System.out.println("Loading map from: " + currentMapPath);
-        hazardM = new HazardManager(this);
-        hazardM.link(0, 0);
-        entityM.loadFromTileManager(tileM);
-
-        player = new Player(this, keyH, entityM);
+    /** Starts logging input for the level that was just loaded (no-op unless --record). */
+    public void startRecording() {
+        finishRecording();
+        if (recordDir == null)
+            return;
+        recording = new InputLog(world.currentMapPath, world.seed);
+        recordedRestarts = world.restartCount;
+    }
 
-        for (Entity e : entityM.getAllEntities()) {
-            e.setGamePanel(this);
+    /** Writes the current log, if any, with the checksum of the final state. */
+    private void finishRecording() {
+        if (recording == null)
+            return;
+        InputLog log = recording;
+        recording = null;
+        log.finalChecksum = world.checksum();
+
+        String map = Path.of(log.mapPath).getFileName().toString().replace(".txt", "");
+        Path file = recordDir.resolve(map + "-" + System.currentTimeMillis() + InputLog.EXTENSION);
+        try {
+            Files.createDirectories(recordDir);
+            log.write(file);
+            GameLog.info("Recorded {} ticks to {}", log.ticks(), file);
+        } catch (IOException e) {
+            GameLog.error("Could not write input log {}: {}", file, e);
         }
+    }
 
-        gameState = PLAY_STATE;
+    // =============================================================
+    // LEVEL RESTART / STATE CHANGES
+    // =============================================================
+    public void restartLevel() {
+        GameLog.info("Player died! Restarting level...");
+        world.restartLevel();
         repaint();
     }
 
     public void resetGame() {
         restartLevel();
-        gameState = PLAY_STATE;
-    }
-
-    public void triggerGameOver() {
-        System.out.println("GAME OVER — waiting for restart input");
-        gameState = GAME_OVER_STATE;
-        keyH.resetKeys();
-    }
-
-    public void triggerWin() {
-        System.out.println("Level Complete!");
-        gameState = GAME_WIN_STATE;
-        keyH.resetKeys();
-        repaint();
     }
 
     // =============================================================
@@ -137,61 +181,156 @@ public class GamePanel extends JPanel implements Runnable {
     // =============================================================
     @Override
     public void run() {
-        double drawInterval = 1000000000 / FPS;
-        double delta = 0;
-        long lastTime = System.nanoTime();
-        long currentTime;
-        long timer = 0;
-        int drawCount = 0;
+        final long stepNanos = 1_000_000_000L / TICK_RATE;
+        final long frameNanos = (renderMode == RENDER_VSYNC) ? 1_000_000_000L / displayRefreshRate() : stepNanos;
 
-        while (gameThread != null) {
-            currentTime = System.nanoTime();
-            delta += (currentTime - lastTime) / drawInterval;
-            timer += (currentTime - lastTime);
-            lastTime = currentTime;
+        long previous = System.nanoTime();
+        long accumulator = 0;
+        long nextFrame = previous;
 
-            if (delta >= 1) {
+        // metrics are snapshot once per second
+        long reportTimer = previous;
+        metrics.snapshot(); // drop what piled up while the game was stopped
+        lastPaintStart = 0;
+        publishFrame(); // the freshly loaded level
+
+        while (gameThread != null) {
+            long now = System.nanoTime();
+            accumulator += now - previous;
+            previous = now;
+
+            // Fixed-step simulation: run every tick that is due, but never more than
+            // MAX_CATCH_UP_TICKS in a row so a long stall can't snowball.
+            int ticks = 0;
+            while (accumulator >= stepNanos && ticks < MAX_CATCH_UP_TICKS) {
+                long tickStart = System.nanoTime();
+                long allocatedBefore = metrics.threadAllocatedBytes();
                 update();
-                repaint();
-                delta--;
-                drawCount++;
+                if (allocatedBefore >= 0)
+                    metrics.allocatedBytes.record(metrics.threadAllocatedBytes() - allocatedBefore);
+                metrics.tickNanos.record(System.nanoTime() - tickStart);
+                metrics.ticks.increment();
+                accumulator -= stepNanos;
+                ticks++;
+            }
+            if (accumulator >= stepNanos) {
+                metrics.droppedTicks.add(accumulator / stepNanos);
+                accumulator %= stepNanos; // drop the backlog we gave up on
+            }
+
+            if (ticks > 0)
+                publishFrame();
+
+            now = System.nanoTime();
+            boolean draw = switch (renderMode) {
+                case RENDER_UNCAPPED -> true;
+                case RENDER_VSYNC -> now >= nextFrame;
+                default -> ticks > 0;
+            };
+            if (draw) {
+                // leftover time since the last tick, as a fraction of a tick
+                renderAlpha = Math.min(1f, (accumulator + now - previous) / (float) stepNanos);
+                if (canvas != null)
+                    renderActive();
+                else
+                    repaint();
+                nextFrame = Math.max(nextFrame + frameNanos, now);
             }
 
-            if (timer >= 1000000000) {
-                System.out.println("FPS:" + drawCount);
-                drawCount = 0;
-                timer = 0;
+            if (now - reportTimer >= 1_000_000_000L) {
+                reportMetrics();
+                reportTimer = now;
             }
+
+            // Sleep until the next tick (or vsync frame) is due instead of spinning.
+            if (renderMode == RENDER_UNCAPPED) {
+                Thread.yield();
+            } else {
+                long untilTick = stepNanos - accumulator;
+                long untilFrame = (renderMode == RENDER_VSYNC) ? nextFrame - System.nanoTime() : untilTick;
+                long wait = Math.min(untilTick, untilFrame);
+                if (wait > 0)
+                    LockSupport.parkNanos(wait);
+            }
+        }
+    }
+
+    /** Game thread, once per second: snapshots the metrics for the console, the HUD and the dump. */
+    private void reportMetrics() {
+        Metrics.Snapshot s = metrics.snapshot();
+        metrics.dump(s);
+        hudLines = hudLines(s);
+        if (GameLog.isEnabled(GameLog.INFO)) {
+            GameLog.info("{}", String.format("UPS: %d (%.2f ms/tick)  FPS: %d (%.2f ms/frame)  input lag: %.2f ms max",
+                    s.get("ticks"), s.get("tick_ns.mean") / 1e6, s.get("frames"), s.get("paint_ns.mean") / 1e6,
+                    s.get("input_lag_max_ns") / 1e6));
+        }
+    }
+
+    private static String[] hudLines(Metrics.Snapshot s) {
+        return new String[] {
+                String.format("UPS %d  FPS %d  dropped %d", s.get("ticks"), s.get("frames"), s.get("dropped_ticks")),
+                String.format("tick   p50 %.2f  p99 %.2f  max %.2f ms", s.get("tick_ns.p50") / 1e6,
+                        s.get("tick_ns.p99") / 1e6, s.get("tick_ns.max") / 1e6),
+                String.format("frame  p50 %.2f  p99 %.2f  max %.2f ms", s.get("frame_interval_ns.p50") / 1e6,
+                        s.get("frame_interval_ns.p99") / 1e6, s.get("frame_interval_ns.max") / 1e6),
+                String.format("paint  p50 %.2f  p99 %.2f  max %.2f ms", s.get("paint_ns.p50") / 1e6,
+                        s.get("paint_ns.p99") / 1e6, s.get("paint_ns.max") / 1e6),
+                String.format("alloc  %.1f KB/tick  p99 %.1f KB", s.get("alloc_bytes_per_tick.mean") / 1024.0,
+                        s.get("alloc_bytes_per_tick.p99") / 1024.0),
+                String.format("GC     %d pauses  max %d ms", s.get("gc_pause_ms.count"), s.get("gc_pause_ms.max")),
+                String.format("enemies %d  objects %d  input lag %.1f ms", s.get("enemies"), s.get("objects"),
+                        s.get("input_lag_max_ns") / 1e6),
+        };
+    }
+
+    private int displayRefreshRate() {
+        if (!GraphicsEnvironment.isHeadless()) {
+            int hz = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice()
+                    .getDisplayMode().getRefreshRate();
+            if (hz != DisplayMode.REFRESH_RATE_UNKNOWN && hz > 0)
+                return hz;
         }
+        return TICK_RATE;
     }
 
     // =============================================================
     // UPDATE LOGIC
     // =============================================================
     public void update() {
-        if (gameState == PLAY_STATE) {
-            player.update();
-            entityM.update();
-            hazardM.update(entityM.getAllEntities());
-
-            // Example win condition: step on bottom-right tile
-            int playerCol = (player.getX() + tileSize / 2) / tileSize;
-            int playerRow = (player.getY() + tileSize / 2) / tileSize;
-            if (playerCol == maxScreenCol - 1 && playerRow == maxScreenRow - 1) {
-                triggerWin();
+        keyH.drain(); // key events queued by the EDT since the last tick
+        world.entityM.storePreviousPositions(); // the frame blends from here
+
+        if (recording != null) {
+            // the input this tick sees, plus any restart since the previous tick
+            int mask = keyH.mask();
+            if (world.restartCount != recordedRestarts) {
+                recordedRestarts = world.restartCount;
+                mask |= InputLog.RESTART;
             }
-        } else if (gameState == GAME_OVER_STATE || gameState == GAME_WIN_STATE) {
+            recording.add(mask);
+        }
+
+        if (world.gameState == PLAY_STATE) {
+            world.step();
+        } else if (world.gameState == GAME_OVER_STATE || world.gameState == GAME_WIN_STATE) {
             handleEndScreenInput();
         }
     }
 
     private void handleEndScreenInput() {
         if (keyH.yPress) {
-            restartLevel();
             keyH.yPress = false;
-        } else if (keyH.nPress && mainApp != null) {
-            mainApp.showLevelSelect(); // go to level selection instead
+            restartLevel();
+        } else if (keyH.nPress) {
             keyH.nPress = false;
+            if (mainApp != null) {
+                // screen switches stop this thread, so they run on the EDT
+                if (world.gameState == GAME_OVER_STATE)
+                    SwingUtilities.invokeLater(mainApp::backToMenu);
+                else
+                    SwingUtilities.invokeLater(mainApp::showLevelSelect); // go to level selection instead
+            }
         }
     }
 
@@ -202,26 +341,130 @@ public class GamePanel extends JPanel implements Runnable {
     // =============================================================
     // DRAWING
     // =============================================================
+    /**
+     * Game thread: captures the camera, game state and entity draw commands
+     * into the next RenderFrame and hands it to the painter.
+     */
+    private void publishFrame() {
+        RenderFrame frame = frames.beginWrite();
+
+        // world layer, scrolled so the active character stays in view
+        int activeIndex = world.player.getActiveIndex();
+        if (activeIndex < world.entityM.characters.size()) {
+            PlayableCharacter target = world.entityM.characters.get(activeIndex);
+            int worldWidth = world.maxWorldCol * world.tileSize;
+            int worldHeight = world.maxWorldRow * world.tileSize;
+            camera.followAt(target, target.prevX, target.prevY, worldWidth, worldHeight);
+            frame.prevCameraX = camera.x;
+            frame.prevCameraY = camera.y;
+            camera.follow(target, worldWidth, worldHeight);
+        } else {
+            frame.prevCameraX = camera.x;
+            frame.prevCameraY = camera.y;
+        }
+        frame.cameraX = camera.x;
+        frame.cameraY = camera.y;
+        world.entityM.draw(frame, activeIndex, camera.x, camera.y, camera.width, camera.height);
+
+        frame.gameState = world.gameState;
+        frame.teleportMessage = teleportMessage();
+        frames.publish();
+    }
+
+    /** EDT (repaint path): paints the latest published frame. */
     @Override
     public void paintComponent(Graphics g) {
         super.paintComponent(g);
+        if (canvas != null)
+            return; // the canvas covers the panel
         Graphics2D g2 = (Graphics2D) g;
+        paintFrame(g2, renderAlpha);
+        if (renderMode == RENDER_VSYNC)
+            Toolkit.getDefaultToolkit().sync();
+        g2.dispose();
+    }
+
+    /**
+     * Game thread (active path): draws the latest frame into the canvas back
+     * buffer and flips it, redrawing if the buffer contents were lost.
+     */
+    private void renderActive() {
+        BufferStrategy strategy = canvas.getBufferStrategy();
+        if (strategy == null) {
+            if (!canvas.isDisplayable())
+                return; // not on screen yet
+            canvas.createBufferStrategy(2);
+            strategy = canvas.getBufferStrategy();
+        }
+        do {
+            do {
+                Graphics2D g2 = (Graphics2D) strategy.getDrawGraphics();
+                try {
+                    paintFrame(g2, renderAlpha);
+                } finally {
+                    g2.dispose();
+                }
+            } while (strategy.contentsRestored());
+            strategy.show();
+        } while (strategy.contentsLost());
+
+        if (renderMode == RENDER_VSYNC)
+            Toolkit.getDefaultToolkit().sync();
+    }
+
+    /**
+     * Paints the latest published frame alpha of the way from its previous-tick
+     * positions to its latest ones; never touches the live entities.
+     */
+    private void paintFrame(Graphics2D g2, float alpha) {
+        long paintStart = System.nanoTime();
+        if (lastPaintStart != 0)
+            metrics.frameNanos.record(paintStart - lastPaintStart);
+        lastPaintStart = paintStart;
+        RenderFrame frame = frames.latest();
 
         g2.setColor(Color.GRAY);
         g2.fillRect(0, 0, getWidth(), getHeight());
 
-        tileM.draw(g2);
-        entityM.draw(g2, player.getActiveIndex());
+        // tiles are static for the level (loaded while the game thread is stopped),
+        // entities come from the frame
+        int cameraX = frame.cameraX(alpha);
+        int cameraY = frame.cameraY(alpha);
+        g2.translate(-cameraX, -cameraY);
+        world.tileM.draw(g2, cameraX, cameraY, camera.width, camera.height);
+        frame.paint(g2, alpha);
+        g2.translate(cameraX, cameraY);
 
-        drawTeleportUI(g2);
+        if (frame.teleportMessage != null)
+            drawTeleportUI(g2, frame.teleportMessage);
 
-        if (gameState == GAME_OVER_STATE) {
+        if (frame.gameState == GAME_OVER_STATE) {
             drawCenteredText(g2, "GAME OVER", "RESTART? Y / N", Color.WHITE);
-        } else if (gameState == GAME_WIN_STATE) {
+        } else if (frame.gameState == GAME_WIN_STATE) {
             drawWinScreen(g2);
         }
 
-        g2.dispose();
+        String[] hud = hudLines;
+        if (keyH.showHud && hud != null)
+            drawHud(g2, hud);
+
+        metrics.paintNanos.record(System.nanoTime() - paintStart);
+        metrics.frames.increment();
+    }
+
+    /** Metrics HUD in the top-left corner, one line per row. */
+    private void drawHud(Graphics2D g2, String[] lines) {
+        g2.setFont(HUD_FONT);
+        FontMetrics fm = g2.getFontMetrics();
+        int lineHeight = fm.getHeight();
+        int width = 0;
+        for (String line : lines)
+            width = Math.max(width, fm.stringWidth(line));
+        g2.setColor(new Color(0, 0, 0, 170));
+        g2.fillRect(8, 8, width + 12, lines.length * lineHeight + 10);
+        g2.setColor(Color.GREEN);
+        for (int i = 0; i < lines.length; i++)
+            g2.drawString(lines[i], 14, 8 + (i + 1) * lineHeight);
     }
 
     private void drawCenteredText(Graphics2D g2, String msg1, String msg2, Color color) {
@@ -244,28 +487,26 @@ public class GamePanel extends JPanel implements Runnable {
         g2.drawString(msg2, centerX - msg2Width / 2, centerY + 40);
     }
 
-    // Existing Teleport UI (unchanged)
-    private void drawTeleportUI(Graphics2D g2) {
+    /** Hint for the wizard's teleport mode, or null (game thread). */
+    private String teleportMessage() {
+        Player player = world.player;
         if (!(player != null && player.getAllEntities() != null))
-            return;
+            return null;
 
         entity.PlayableCharacter active = player.entityM.characters.get(player.getActiveIndex());
         if (!(active instanceof entity.Wizard wizard))
-            return;
-
-        if (!wizard.isTeleportMode())
-            return;
+            return null;
 
-        String message = "";
         if (wizard.isSelectingTarget()) {
-            message = "Teleport Mode: Select entity (WASD to move, E to select, ESC to cancel)";
+            return "Teleport Mode: Select entity (WASD to move, E to select, ESC to cancel)";
         } else if (wizard.isSelectingDestination()) {
-            message = "Teleport Mode: Choose destination (WASD to move, E to confirm, ESC to cancel)";
+            return "Teleport Mode: Choose destination (WASD to move, E to confirm, ESC to cancel)";
         }
+        return null;
+    }
 
-        if (message.isEmpty())
-            return;
-
+    // Existing Teleport UI (message is captured with the frame)
+    private void drawTeleportUI(Graphics2D g2, String message) {
         int panelWidth = getWidth();
         int panelHeight = getHeight();
 
@@ -0,0 +1,77 @@
+package main;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of non-negative longs with log-linear buckets (the HDR
+ * histogram layout): every power of two is split into 8 equal sub-buckets, so
+ * any recorded value is known to within 12.5% whatever its magnitude. Any
+ * thread may record; {@link #take()} summarises and resets it for the next
+ * interval. A value recorded during a take lands in either interval.
+ */
+public class Histogram {
+    private static final int SUB_BITS = 3;
+    private static final int SUB = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB;
+
+    /** Names of the values returned by {@link #take()}, in order. */
+    public static final String[] STATS = { "count", "mean", "p50", "p90", "p99", "max" };
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long value) {
+        if (value < 0)
+            value = 0;
+        counts.getAndIncrement(bucket(value));
+        sum.getAndAdd(value);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    /** Count, mean, p50, p90, p99 and max of the values since the last take; resets the histogram. */
+    public long[] take() {
+        long[] snapshot = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.getAndSet(i, 0);
+            count += snapshot[i];
+        }
+        long total = sum.getAndSet(0);
+        long largest = max.getAndSet(0);
+        if (count == 0)
+            return new long[STATS.length];
+        return new long[] { count, total / count, percentile(snapshot, count, 0.50, largest),
+                percentile(snapshot, count, 0.90, largest), percentile(snapshot, count, 0.99, largest), largest };
+    }
+
+    /** Highest value of the bucket holding the given fraction of the counts (never above the max seen). */
+    private static long percentile(long[] snapshot, long count, double fraction, long largest) {
+        long rank = (long) Math.ceil(count * fraction);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank)
+                return Math.min(highest(i), largest);
+        }
+        return largest;
+    }
+
+    // ===== Bucket layout: values below SUB get a bucket each, then SUB per power of two =====
+    private static int bucket(long value) {
+        if (value < SUB)
+            return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value); // >= SUB_BITS
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB - 1);
+        return (exponent - SUB_BITS + 1) * SUB + sub;
+    }
+
+    private static long highest(int bucket) {
+        if (bucket < SUB)
+            return bucket;
+        int exponent = bucket / SUB + SUB_BITS - 1;
+        long width = 1L << (exponent - SUB_BITS);
+        return (SUB + bucket % SUB) * width + width - 1;
+    }
+}
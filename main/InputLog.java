@@ -0,0 +1,154 @@
+package main;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Per-tick input of one level attempt: the map, the level seed, the
+ * KeyHandler bitmask seen by every tick and the checksum of the final world
+ * state. Feeding the masks back through a headless World reproduces the run.
+ *
+ * File layout (big-endian): int magic "A3RP", short version, UTF map path,
+ * long seed, then runs of (varint tickCount, varint mask XOR previous mask)
+ * ended by a tickCount of 0, then int totalTicks, long final checksum.
+ * Masks rarely change, so a run of held keys costs a few bytes.
+ */
+public class InputLog {
+    public static final int MAGIC = 0x41335250; // "A3RP"
+    public static final int VERSION = 1;
+    public static final String EXTENSION = ".rpl";
+
+    /** Extra mask bit: the level was restarted right before this tick. */
+    public static final int RESTART = 1 << 15;
+
+    public final String mapPath;
+    public final long seed;
+    public long finalChecksum;
+
+    // run-length encoded masks: runMasks[i] holds for runTicks[i] ticks
+    private int[] runMasks = new int[64];
+    private int[] runTicks = new int[64];
+    private int runs = 0;
+    private int totalTicks = 0;
+
+    public InputLog(String mapPath, long seed) {
+        this.mapPath = mapPath;
+        this.seed = seed;
+    }
+
+    /** Appends the mask seen by the next tick. */
+    public void add(int mask) {
+        // restarts are events, never merged into a run
+        if (runs > 0 && runMasks[runs - 1] == mask && (mask & RESTART) == 0) {
+            runTicks[runs - 1]++;
+        } else {
+            if (runs == runMasks.length) {
+                runMasks = Arrays.copyOf(runMasks, runs * 2);
+                runTicks = Arrays.copyOf(runTicks, runs * 2);
+            }
+            runMasks[runs] = mask;
+            runTicks[runs] = 1;
+            runs++;
+        }
+        totalTicks++;
+    }
+
+    public int ticks() {
+        return totalTicks;
+    }
+
+    /**
+     * Runs the log against a fresh headless world and returns the world
+     * after the last tick; compare its checksum() with finalChecksum.
+     */
+    public World replay() {
+        World world = new World(mapPath, seed);
+        for (int r = 0; r < runs; r++) {
+            for (int t = 0; t < runTicks[r]; t++)
+                world.step(runMasks[r]);
+        }
+        return world;
+    }
+
+    // =============================================================
+    // ENCODING
+    // =============================================================
+    public void write(Path file) throws IOException {
+        Files.write(file, toBytes());
+    }
+
+    public byte[] toBytes() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeUTF(mapPath);
+        out.writeLong(seed);
+        int previous = 0;
+        for (int r = 0; r < runs; r++) {
+            writeVarInt(out, runTicks[r]);
+            writeVarInt(out, runMasks[r] ^ previous);
+            previous = runMasks[r];
+        }
+        writeVarInt(out, 0);
+        out.writeInt(totalTicks);
+        out.writeLong(finalChecksum);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    public static InputLog read(Path file) throws IOException {
+        try (InputStream is = Files.newInputStream(file)) {
+            return read(is);
+        }
+    }
+
+    public static InputLog read(InputStream is) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(is));
+        if (in.readInt() != MAGIC)
+            throw new IOException("not an input log");
+        int version = in.readShort();
+        if (version != VERSION)
+            throw new IOException("unsupported input log version " + version);
+
+        InputLog log = new InputLog(in.readUTF(), in.readLong());
+        int mask = 0;
+        for (int count = readVarInt(in); count != 0; count = readVarInt(in)) {
+            mask ^= readVarInt(in);
+            for (int t = 0; t < count; t++)
+                log.add(mask);
+        }
+        int expected = in.readInt();
+        if (expected != log.totalTicks)
+            throw new IOException("input log truncated: " + log.totalTicks + " of " + expected + " ticks");
+        log.finalChecksum = in.readLong();
+        return log;
+    }
+
+    private static void writeVarInt(OutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+        throw new IOException("bad varint in input log");
+    }
+}
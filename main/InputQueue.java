@@ -0,0 +1,70 @@
+package main;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single-producer / single-consumer ring buffer of timestamped key events.
+ * The EDT offers events, the game thread polls them; neither side locks.
+ * Each side owns one counter and publishes it with release/acquire ordering,
+ * so a slot is always fully written before the other side can see it.
+ */
+public class InputQueue {
+    private final int mask;
+    private final long[] times;
+    private final int[] keys; // key code, negated (minus one) for a release
+
+    private final AtomicLong head = new AtomicLong(); // next slot to read, written by the consumer
+    private final AtomicLong tail = new AtomicLong(); // next slot to write, written by the producer
+    private volatile long dropped = 0; // written by the producer only
+
+    public InputQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        mask = size - 1;
+        times = new long[size];
+        keys = new int[size];
+    }
+
+    /** Producer: queues a key event; returns false (and drops it) if the queue is full. */
+    public boolean offer(long timeNanos, int keyCode, boolean pressed) {
+        long t = tail.get();
+        if (t - head.getAcquire() > mask) {
+            dropped++;
+            return false;
+        }
+        int slot = (int) t & mask;
+        times[slot] = timeNanos;
+        keys[slot] = pressed ? keyCode : -keyCode - 1;
+        tail.setRelease(t + 1);
+        return true;
+    }
+
+    /** Consumer: true if no event is waiting. */
+    public boolean isEmpty() {
+        return head.get() == tail.getAcquire();
+    }
+
+    /** Consumer: time of the oldest waiting event. Only valid when not empty. */
+    public long peekTime() {
+        return times[(int) head.get() & mask];
+    }
+
+    /** Consumer: key code of the oldest waiting event. Only valid when not empty. */
+    public int peekKey() {
+        int k = keys[(int) head.get() & mask];
+        return k >= 0 ? k : -k - 1;
+    }
+
+    /** Consumer: whether the oldest waiting event is a press. Only valid when not empty. */
+    public boolean peekPressed() {
+        return keys[(int) head.get() & mask] >= 0;
+    }
+
+    /** Consumer: removes the oldest event after it was read with the peek methods. */
+    public void advance() {
+        head.setRelease(head.get() + 1);
+    }
+
+    public long dropped() {
+        return dropped;
+    }
+}
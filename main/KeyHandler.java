@@ -8,81 +8,130 @@ public class KeyHandler implements KeyListener {
     public boolean upPress, leftPress, downPress, rightPress;
     public boolean switchCharacter, teleportPress, escapePress;
     public boolean yPress, nPress;
-    private GamePanel gp; // link to the panel
+    public volatile boolean showHud; // F3, flipped on the EDT; display only, so not part of the input
 
-    public void setGamePanel(GamePanel gp) {
-        this.gp = gp;
-    }
+    // Key events from the EDT, applied to the flags on the game thread by drain().
+    // The flags themselves are only touched by the game thread.
+    private final InputQueue events = new InputQueue(256);
+    private int pendingRelease = 0; // taps released in the tick they were pressed
+    private long maxLatencyNanos = 0;
+
+    // ===== Input bitmask (one bit per flag, used by InputLog) =====
+    public static final int UP = 1;
+    public static final int LEFT = 1 << 1;
+    public static final int DOWN = 1 << 2;
+    public static final int RIGHT = 1 << 3;
+    public static final int SWITCH = 1 << 4;
+    public static final int TELEPORT = 1 << 5;
+    public static final int ESCAPE = 1 << 6;
+    public static final int YES = 1 << 7;
+    public static final int NO = 1 << 8;
+    public static final int ALL_KEYS = (1 << 9) - 1;
+    static final int HELD_KEYS = UP | LEFT | DOWN | RIGHT; // follow press/release
+    static final int EDGE_KEYS = ALL_KEYS & ~HELD_KEYS; // set for the one tick after a press
 
     public void resetKeys() {
         upPress = downPress = leftPress = rightPress = false;
         switchCharacter = false;
         teleportPress = escapePress = false;
+        pendingRelease = 0;
     }
 
-    @Override
-    public void keyTyped(KeyEvent e) {
+    /** Current flags packed into a bitmask. */
+    public int mask() {
+        return (upPress ? UP : 0) | (leftPress ? LEFT : 0) | (downPress ? DOWN : 0) | (rightPress ? RIGHT : 0)
+                | (switchCharacter ? SWITCH : 0) | (teleportPress ? TELEPORT : 0) | (escapePress ? ESCAPE : 0)
+                | (yPress ? YES : 0) | (nPress ? NO : 0);
     }
 
-    @Override
-    public void keyPressed(KeyEvent e) {
-        int code = e.getKeyCode();
+    /** Sets every flag from a bitmask made by {@link #mask()}. */
+    public void setMask(int mask) {
+        upPress = (mask & UP) != 0;
+        leftPress = (mask & LEFT) != 0;
+        downPress = (mask & DOWN) != 0;
+        rightPress = (mask & RIGHT) != 0;
+        switchCharacter = (mask & SWITCH) != 0;
+        teleportPress = (mask & TELEPORT) != 0;
+        escapePress = (mask & ESCAPE) != 0;
+        yPress = (mask & YES) != 0;
+        nPress = (mask & NO) != 0;
+    }
 
-        // Handle differently depending on game state
-        if (gp != null && gp.gameState == GamePanel.GAME_OVER_STATE) {
-            if (code == KeyEvent.VK_Y) {
-                gp.restartLevel();
-            }
-            if (code == KeyEvent.VK_N) {
-                if (gp.mainApp != null) {
-                    gp.mainApp.backToMenu();
-                }
+    // =============================================================
+    // EVENT QUEUE (EDT -> game thread)
+    // =============================================================
+    /**
+     * Applies every queued key event to the flags. Call once per tick on the
+     * game thread, before the simulation reads the flags. Edge flags (switch,
+     * teleport, escape, Y, N) are set for the one tick after a press; the
+     * handler clears them, and unhandled ones expire, so a press never fires
+     * twice or lingers. A movement key pressed and released within one tick
+     * stays down for that tick.
+     */
+    public void drain() {
+        setMask(mask() & ~(pendingRelease | EDGE_KEYS));
+        pendingRelease = 0;
+
+        int pressedThisTick = 0;
+        long now = System.nanoTime();
+        while (!events.isEmpty()) {
+            int bit = bitFor(events.peekKey());
+            boolean pressed = events.peekPressed();
+            maxLatencyNanos = Math.max(maxLatencyNanos, now - events.peekTime());
+            events.advance();
+            if (bit == 0)
+                continue;
 
+            if (pressed) {
+                setMask(mask() | bit);
+                pressedThisTick |= bit;
+            } else if ((bit & HELD_KEYS) != 0) {
+                if ((pressedThisTick & bit) != 0)
+                    pendingRelease |= bit; // let the tap count for one tick
+                else
+                    setMask(mask() & ~bit);
             }
-            return; // block other input during game over
         }
+    }
 
-        if (code == KeyEvent.VK_UP || code == KeyEvent.VK_W)
-            upPress = true;
-        if (code == KeyEvent.VK_LEFT || code == KeyEvent.VK_A)
-            leftPress = true;
-        if (code == KeyEvent.VK_DOWN || code == KeyEvent.VK_S)
-            downPress = true;
-        if (code == KeyEvent.VK_RIGHT || code == KeyEvent.VK_D)
-            rightPress = true;
-        if (code == KeyEvent.VK_Q)
-            switchCharacter = true;
-        if (code == KeyEvent.VK_E)
-            teleportPress = true;
-        if (code == KeyEvent.VK_ESCAPE)
-            escapePress = true;
-        if (code == KeyEvent.VK_Y)
-            yPress = true;
-        if (code == KeyEvent.VK_N)
-            nPress = true;
+    /** Longest time an event waited in the queue since the last call, in nanoseconds. */
+    public long takeMaxLatencyNanos() {
+        long max = maxLatencyNanos;
+        maxLatencyNanos = 0;
+        return max;
+    }
+
+    private static int bitFor(int code) {
+        return switch (code) {
+            case KeyEvent.VK_UP, KeyEvent.VK_W -> UP;
+            case KeyEvent.VK_LEFT, KeyEvent.VK_A -> LEFT;
+            case KeyEvent.VK_DOWN, KeyEvent.VK_S -> DOWN;
+            case KeyEvent.VK_RIGHT, KeyEvent.VK_D -> RIGHT;
+            case KeyEvent.VK_Q -> SWITCH;
+            case KeyEvent.VK_E -> TELEPORT;
+            case KeyEvent.VK_ESCAPE -> ESCAPE;
+            case KeyEvent.VK_Y -> YES;
+            case KeyEvent.VK_N -> NO;
+            default -> 0;
+        };
+    }
+
+    // ===== KeyListener (EDT): only queue the event =====
+    @Override
+    public void keyTyped(KeyEvent e) {
+    }
+
+    @Override
+    public void keyPressed(KeyEvent e) {
+        if (e.getKeyCode() == KeyEvent.VK_F3) {
+            showHud = !showHud;
+            return;
+        }
+        events.offer(System.nanoTime(), e.getKeyCode(), true);
     }
 
     @Override
     public void keyReleased(KeyEvent e) {
-        int code = e.getKeyCode();
-
-        if (code == KeyEvent.VK_UP || code == KeyEvent.VK_W)
-            upPress = false;
-        if (code == KeyEvent.VK_LEFT || code == KeyEvent.VK_A)
-            leftPress = false;
-        if (code == KeyEvent.VK_DOWN || code == KeyEvent.VK_S)
-            downPress = false;
-        if (code == KeyEvent.VK_RIGHT || code == KeyEvent.VK_D)
-            rightPress = false;
-        if (code == KeyEvent.VK_Q)
-            switchCharacter = false;
-        if (code == KeyEvent.VK_E)
-            teleportPress = false;
-        if (code == KeyEvent.VK_ESCAPE)
-            escapePress = false;
-        if (code == KeyEvent.VK_Y)
-            yPress = false;
-        if (code == KeyEvent.VK_N)
-            nPress = false;
+        events.offer(System.nanoTime(), e.getKeyCode(), false);
     }
 }
@@ -2,6 +2,7 @@ package main;
 
 import javax.swing.*;
 import java.awt.*;
+import java.nio.file.Path;
 
 public class Main {
     private JFrame window;
@@ -11,10 +12,59 @@ public class Main {
     private MainMenuPanel menuPanel;
     private LevelSelectionPanel levelSelectionPanel;
 
+    // command line options
+    private static int renderMode = GamePanel.RENDER_CAPPED;
+    private static Long seed = null; // fixed level seed, null = per map / random
+    private static Path recordDir = null; // where input logs are written, null = off
+    private static boolean activeRender = false; // draw the game through a BufferStrategy
+    private static Path metricsFile = null; // per-second metrics dump (.csv or .json), null = off
+
     public static void main(String[] args) {
+        parseArgs(args);
         SwingUtilities.invokeLater(() -> new Main().init());
     }
 
+    /** Reads options such as "--render vsync" from the command line. */
+    private static void parseArgs(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            String value = (i + 1 < args.length) ? args[i + 1] : null;
+
+            if (arg.equals("--render") && value != null) {
+                renderMode = switch (value) {
+                    case "uncapped" -> GamePanel.RENDER_UNCAPPED;
+                    case "vsync" -> GamePanel.RENDER_VSYNC;
+                    default -> GamePanel.RENDER_CAPPED;
+                };
+                i++;
+            } else if (arg.equals("--active-render")) {
+                activeRender = true;
+            } else if (arg.equals("--log-level") && value != null) {
+                int level = GameLog.parseLevel(value); // debug, info, warn, error or off
+                if (level >= 0)
+                    GameLog.setLevel(level);
+                else
+                    System.err.println("Bad log level: " + value);
+                i++;
+            } else if (arg.equals("--metrics") && value != null) {
+                metricsFile = Path.of(value);
+                i++;
+            } else if (arg.equals("--record") && value != null) {
+                recordDir = Path.of(value);
+                i++;
+            } else if (arg.equals("--seed") && value != null) {
+                try {
+                    seed = Long.parseLong(value);
+                } catch (NumberFormatException e) {
+                    System.err.println("Bad seed: " + value);
+                }
+                i++;
+            } else {
+                System.err.println("Unknown option: " + arg);
+            }
+        }
+    }
+
     public void init() {
         window = new JFrame("Test");
         window.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
@@ -25,6 +75,13 @@ public class Main {
 
         menuPanel = new MainMenuPanel(this);
         gamePanel = new GamePanel(this);
+        gamePanel.renderMode = renderMode;
+        gamePanel.world.seedOverride = seed;
+        gamePanel.recordDir = recordDir;
+        if (metricsFile != null)
+            gamePanel.metrics.startDump(metricsFile);
+        if (activeRender)
+            gamePanel.enableActiveRendering();
         levelSelectionPanel = new LevelSelectionPanel(this);
 
         mainPanel.add(menuPanel, "menu");
@@ -53,24 +110,13 @@ public class Main {
         // Stop any old game thread (avoid two loops at once)
         gamePanel.stopGameThread();
 
-        // Set new map path
-        String mapPath = "/Resource/maps/" + mapFile;
-        gamePanel.currentMapPath = mapPath;
-
-        // Reload everything properly
-        gamePanel.tileM.resetAndLoadMap(mapPath);
-        gamePanel.entityM.clearAll();
-        gamePanel.entityM.loadFromTileManager(gamePanel.tileM);
-        gamePanel.hazardM = new tile.HazardManager(gamePanel);
-        gamePanel.hazardM.link(0, 0);
-
-        // Restart game state cleanly
-        gamePanel.restartLevel();
-        gamePanel.gameState = GamePanel.PLAY_STATE;
+        // Load the new map (restarts afterwards reuse what was loaded here)
+        gamePanel.world.loadLevel("/Resource/maps/" + mapFile);
+        gamePanel.startRecording();
 
         // Switch to game screen
         cardLayout.show(mainPanel, "game");
-        gamePanel.requestFocusInWindow();
+        gamePanel.requestGameFocus();
         gamePanel.startGameThread();
     }
 
@@ -0,0 +1,201 @@
+package main;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+/**
+ * Registry of the game's runtime metrics: counters (LongAdders), histograms
+ * and gauges, all safe to update from any thread without locking. Once per
+ * interval the game thread takes a {@link Snapshot}, which resets counters
+ * and histograms; snapshots feed the console line, the HUD and, with
+ * --metrics, a CSV or JSON-lines file written by a background thread.
+ *
+ * Register everything before the first snapshot: the dump's columns are
+ * fixed by it.
+ */
+public class Metrics {
+    private final Map<String, LongAdder> counters = new LinkedHashMap<>();
+    private final Map<String, Histogram> histograms = new LinkedHashMap<>();
+    private final Map<String, LongSupplier> gauges = new LinkedHashMap<>();
+
+    // ===== Game loop metrics =====
+    public final LongAdder ticks = counter("ticks");
+    public final LongAdder frames = counter("frames");
+    public final LongAdder droppedTicks = counter("dropped_ticks"); // backlog given up after a stall
+    public final Histogram tickNanos = histogram("tick_ns"); // one update()
+    public final Histogram paintNanos = histogram("paint_ns"); // drawing one frame
+    public final Histogram frameNanos = histogram("frame_interval_ns"); // start of one frame to the next
+    public final Histogram allocatedBytes = histogram("alloc_bytes_per_tick");
+    public final Histogram gcPauseMillis = histogram("gc_pause_ms");
+
+    // per-thread allocation counter of the JVM, null if unavailable
+    private final com.sun.management.ThreadMXBean threads;
+    private BlockingQueue<Snapshot> dumpQueue; // null = no dump
+
+    public Metrics() {
+        threads = allocationCounter();
+        watchGarbageCollections();
+    }
+
+    // =============================================================
+    // REGISTRATION
+    // =============================================================
+    public synchronized LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, n -> new LongAdder());
+    }
+
+    public synchronized Histogram histogram(String name) {
+        return histograms.computeIfAbsent(name, n -> new Histogram());
+    }
+
+    /** A value read at each snapshot, on the thread taking it. */
+    public synchronized void gauge(String name, LongSupplier value) {
+        gauges.put(name, value);
+    }
+
+    // =============================================================
+    // JVM SOURCES
+    // =============================================================
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean))
+            return null;
+        if (!bean.isThreadAllocatedMemorySupported())
+            return null;
+        bean.setThreadAllocatedMemoryEnabled(true);
+        return bean;
+    }
+
+    /** Bytes allocated so far by the calling thread, or -1 if the JVM can't tell. */
+    public long threadAllocatedBytes() {
+        return threads != null ? threads.getCurrentThreadAllocatedBytes() : -1;
+    }
+
+    /** Records the duration of every collection the JVM reports, as it happens. */
+    private void watchGarbageCollections() {
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (!(gc instanceof NotificationEmitter emitter))
+                continue;
+            emitter.addNotificationListener((notification, handback) -> {
+                if (!notification.getType().equals(GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION))
+                    return;
+                GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo
+                        .from((CompositeData) notification.getUserData());
+                if (info.getGcName().contains("Cycles"))
+                    return; // ZGC/Shenandoah concurrent cycles; their pauses are reported separately
+                gcPauseMillis.record(info.getGcInfo().getDuration());
+            }, null, null);
+        }
+    }
+
+    // =============================================================
+    // SNAPSHOTS
+    // =============================================================
+    /** Values of every metric over one interval, as flat named columns. */
+    public static class Snapshot {
+        public final long timeMillis;
+        public final String[] columns;
+        public final long[] values;
+
+        Snapshot(long timeMillis, List<String> columns, List<Long> values) {
+            this.timeMillis = timeMillis;
+            this.columns = columns.toArray(new String[0]);
+            this.values = values.stream().mapToLong(Long::longValue).toArray();
+        }
+
+        /** The value of a column such as "ticks" or "tick_ns.p99", or 0 if there is none. */
+        public long get(String column) {
+            for (int i = 0; i < columns.length; i++) {
+                if (columns[i].equals(column))
+                    return values[i];
+            }
+            return 0;
+        }
+    }
+
+    /** Reads every metric and resets counters and histograms for the next interval. */
+    public synchronized Snapshot snapshot() {
+        List<String> columns = new ArrayList<>();
+        List<Long> values = new ArrayList<>();
+        counters.forEach((name, counter) -> {
+            columns.add(name);
+            values.add(counter.sumThenReset());
+        });
+        histograms.forEach((name, histogram) -> {
+            long[] stats = histogram.take();
+            for (int i = 0; i < stats.length; i++) {
+                columns.add(name + "." + Histogram.STATS[i]);
+                values.add(stats[i]);
+            }
+        });
+        gauges.forEach((name, gauge) -> {
+            columns.add(name);
+            values.add(gauge.getAsLong());
+        });
+        return new Snapshot(System.currentTimeMillis(), columns, values);
+    }
+
+    // =============================================================
+    // DUMP (--metrics)
+    // =============================================================
+    /** Starts appending every dumped snapshot to the file: JSON lines for *.json, CSV otherwise. */
+    public synchronized void startDump(Path file) {
+        if (dumpQueue != null)
+            return;
+        dumpQueue = new ArrayBlockingQueue<>(64);
+        boolean json = file.toString().endsWith(".json");
+        Thread writer = new Thread(() -> writeDump(file, json), "metrics-dump");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /** Hands the snapshot to the dump writer; never blocks (drops it if the writer is behind). */
+    public void dump(Snapshot snapshot) {
+        if (dumpQueue != null)
+            dumpQueue.offer(snapshot);
+    }
+
+    private void writeDump(Path file, boolean json) {
+        try (BufferedWriter out = Files.newBufferedWriter(file)) {
+            boolean header = false;
+            while (true) {
+                Snapshot s = dumpQueue.take();
+                if (json) {
+                    out.write("{\"time_ms\":" + s.timeMillis);
+                    for (int i = 0; i < s.columns.length; i++)
+                        out.write(",\"" + s.columns[i] + "\":" + s.values[i]);
+                    out.write("}");
+                } else {
+                    if (!header) {
+                        out.write("time_ms," + String.join(",", s.columns));
+                        out.newLine();
+                        header = true;
+                    }
+                    out.write(Long.toString(s.timeMillis));
+                    for (long value : s.values)
+                        out.write("," + value);
+                }
+                out.newLine();
+                out.flush(); // a killed game keeps everything up to the last interval
+            }
+        } catch (IOException e) {
+            GameLog.warn("Metrics dump to {} stopped: {}", file, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package main;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/**
+ * Everything the painter needs for one frame, captured on the game thread:
+ * the camera, the game state, the teleport hint and a flat list of draw
+ * commands emitted by the entities. Sprites are shared, never-modified images,
+ * so the list holds references to them. Frames are reused through
+ * {@link FrameExchange}; nothing is allocated once the arrays have grown.
+ *
+ * Positions are those after the latest tick; the camera and every command
+ * also keep where they were one tick earlier, and the painter blends the two
+ * by how far the clock has run into the next tick.
+ */
+public class RenderFrame {
+    private static final int IMAGE = 0;
+    private static final int FILL_RECT = 1;
+    private static final int DRAW_RECT = 2;
+    private static final int STRIDE = 6;
+
+    // ===== Frame state =====
+    public int cameraX, cameraY;
+    public int prevCameraX, prevCameraY;
+    public int gameState = World.PLAY_STATE;
+    public String teleportMessage; // null = no hint bar
+
+    // ===== Draw commands (parallel arrays) =====
+    private int count = 0;
+    private int[] ops = new int[64];
+    private Object[] refs = new Object[64]; // BufferedImage for IMAGE, Color otherwise
+    private int[] rects = new int[64 * STRIDE]; // x, y, width, height, motion x, motion y per command
+    private Color color = Color.BLACK;
+    private int motionX, motionY; // previous position minus current, for the commands that follow
+
+    /** Forgets the previous contents so the frame can be refilled. */
+    public void clear() {
+        Arrays.fill(refs, 0, count, null);
+        count = 0;
+        color = Color.BLACK;
+        motionX = motionY = 0;
+        teleportMessage = null;
+    }
+
+    // ===== Recording (game thread) =====
+    public void setColor(Color color) {
+        this.color = color;
+    }
+
+    /** Offset from the current to the previous-tick position of what is drawn next. */
+    public void setMotion(int dx, int dy) {
+        motionX = dx;
+        motionY = dy;
+    }
+
+    public void drawImage(BufferedImage img, int x, int y, int width, int height) {
+        add(IMAGE, img, x, y, width, height);
+    }
+
+    public void fillRect(int x, int y, int width, int height) {
+        add(FILL_RECT, color, x, y, width, height);
+    }
+
+    public void drawRect(int x, int y, int width, int height) {
+        add(DRAW_RECT, color, x, y, width, height);
+    }
+
+    private void add(int op, Object ref, int x, int y, int width, int height) {
+        if (count == ops.length) {
+            ops = Arrays.copyOf(ops, count * 2);
+            refs = Arrays.copyOf(refs, count * 2);
+            rects = Arrays.copyOf(rects, count * 2 * STRIDE);
+        }
+        ops[count] = op;
+        refs[count] = ref;
+        int r = count * STRIDE;
+        rects[r] = x;
+        rects[r + 1] = y;
+        rects[r + 2] = width;
+        rects[r + 3] = height;
+        rects[r + 4] = motionX;
+        rects[r + 5] = motionY;
+        count++;
+    }
+
+    // ===== Playback (painter) =====
+    /** Camera x for the given blend factor (0 = previous tick, 1 = latest tick). */
+    public int cameraX(float alpha) {
+        return blend(cameraX, prevCameraX - cameraX, alpha);
+    }
+
+    public int cameraY(float alpha) {
+        return blend(cameraY, prevCameraY - cameraY, alpha);
+    }
+
+    /**
+     * Replays the draw commands in order onto g2 (already translated to world
+     * space), each placed alpha of the way from its previous to its latest position.
+     */
+    public void paint(Graphics2D g2, float alpha) {
+        for (int i = 0; i < count; i++) {
+            int r = i * STRIDE;
+            int x = blend(rects[r], rects[r + 4], alpha);
+            int y = blend(rects[r + 1], rects[r + 5], alpha);
+            switch (ops[i]) {
+                case IMAGE -> g2.drawImage((BufferedImage) refs[i], x, y, rects[r + 2], rects[r + 3], null);
+                case FILL_RECT -> {
+                    g2.setColor((Color) refs[i]);
+                    g2.fillRect(x, y, rects[r + 2], rects[r + 3]);
+                }
+                case DRAW_RECT -> {
+                    g2.setColor((Color) refs[i]);
+                    g2.drawRect(x, y, rects[r + 2], rects[r + 3]);
+                }
+            }
+        }
+    }
+
+    private static int blend(int current, int motion, float alpha) {
+        return motion == 0 ? current : current + Math.round(motion * (1 - alpha));
+    }
+}
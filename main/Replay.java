@@ -0,0 +1,55 @@
+package main;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Replays recorded input logs through the headless World as fast as the
+ * simulation runs and checks that each ends in the recorded state. Exits with
+ * status 1 if any log diverges, so it can gate CI.
+ *
+ * Usage: java main.Replay [log.rpl | directory]...
+ */
+public class Replay {
+    public static void main(String[] args) throws IOException {
+        List<Path> logs = new ArrayList<>();
+        for (String arg : args) {
+            Path p = Path.of(arg);
+            if (Files.isDirectory(p)) {
+                try (Stream<Path> files = Files.list(p)) {
+                    files.filter(f -> f.toString().endsWith(InputLog.EXTENSION)).sorted().forEach(logs::add);
+                }
+            } else {
+                logs.add(p);
+            }
+        }
+        if (logs.isEmpty()) {
+            System.err.println("Usage: java main.Replay [log" + InputLog.EXTENSION + " | directory]...");
+            System.exit(2);
+        }
+
+        GameLog.setLevel(GameLog.WARN); // events of the replayed games would bury the report
+        int failed = 0;
+        for (Path file : logs) {
+            InputLog log = InputLog.read(file);
+            long start = System.nanoTime();
+            World world = log.replay();
+            double ms = (System.nanoTime() - start) / 1e6;
+
+            long checksum = world.checksum();
+            boolean ok = checksum == log.finalChecksum;
+            if (!ok)
+                failed++;
+            System.out.printf("%s %s: %d ticks in %.1f ms (%.0fx real time)%s%n",
+                    ok ? "OK      " : "MISMATCH", file.getFileName(), log.ticks(), ms,
+                    log.ticks() * 1000.0 / 60 / Math.max(ms, 0.001),
+                    ok ? "" : String.format(" expected %016x got %016x", log.finalChecksum, checksum));
+        }
+        System.out.println((logs.size() - failed) + "/" + logs.size() + " replays matched");
+        System.exit(failed == 0 ? 0 : 1);
+    }
+}
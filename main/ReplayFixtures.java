@@ -0,0 +1,55 @@
+package main;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+/**
+ * Writes the input logs that ReplayTest replays: for every shipped map, 20000
+ * ticks of seeded pseudo-random play (held keys that change every ~20 ticks,
+ * switches, teleport presses, and a restart some time after each game over),
+ * recorded the way GamePanel records them. Rerun after a deliberate rule
+ * change, and commit the new logs with it.
+ *
+ * Usage: java main.ReplayFixtures [output directory] (default test/replays)
+ */
+public class ReplayFixtures {
+    static final int TICKS = 20_000;
+
+    public static void main(String[] args) throws IOException {
+        GameLog.setLevel(GameLog.WARN);
+        Path dir = Path.of(args.length > 0 ? args[0] : "test/replays");
+        Files.createDirectories(dir);
+        SplittableRandom random = new SplittableRandom(1);
+        for (int n = 1; ReplayFixtures.class.getResource(mapPath(n)) != null; n++) {
+            World world = new World(mapPath(n), random.nextLong());
+            InputLog log = new InputLog(mapPath(n), world.seed);
+            int restarts = world.restartCount;
+            int keys = 0;
+            for (int t = 0; t < TICKS; t++) {
+                if (random.nextInt(20) == 0)
+                    keys = 1 << random.nextInt(6); // one of up/left/down/right/switch/teleport
+                int mask = keys;
+                if (world.restartCount != restarts) {
+                    restarts = world.restartCount;
+                    mask |= InputLog.RESTART;
+                }
+                log.add(mask);
+                if (world.gameState == World.PLAY_STATE)
+                    world.step(mask & ~InputLog.RESTART);
+                else if (random.nextInt(30) == 0)
+                    world.restartLevel(); // logged with the next tick, as GamePanel does
+            }
+            log.finalChecksum = world.checksum();
+            Path file = dir.resolve(String.format("map%02d", n) + InputLog.EXTENSION);
+            log.write(file);
+            System.out.println("wrote " + file + " (" + log.ticks() + " ticks, " + world.restartCount + " restarts)");
+        }
+        GameLog.flush();
+    }
+
+    static String mapPath(int n) {
+        return String.format("/Resource/maps/map%02d.txt", n);
+    }
+}
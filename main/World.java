@@ -0,0 +1,196 @@
+package main;
+
+import java.util.SplittableRandom;
+
+import entity.Button;
+import entity.Entity;
+import entity.EntityManager;
+import entity.LevelSnapshot;
+import entity.Player;
+import entity.Spike;
+import tile.HazardManager;
+import tile.TileManager;
+
+/**
+ * Headless game core: owns the tile map, the entities and the hazard links and
+ * advances them one tick at a time with {@link #step()}.
+ * Nothing in here touches Swing, so levels can be simulated without a display
+ * (solver, replay and regression runs). GamePanel only draws it and feeds input.
+ */
+public class World {
+
+    // ===== World setting =====
+    final int originalTileSize = 16;
+    final int scale = 3;
+
+    public final int tileSize = originalTileSize * scale;
+    // map size in tiles, set by TileManager from the map being loaded
+    public int maxWorldCol = 16;
+    public int maxWorldRow = 12;
+
+    // ===== Game states =====
+    public static final int PLAY_STATE = 0;
+    public static final int GAME_OVER_STATE = 1;
+    public static final int GAME_WIN_STATE = 2;
+    public int gameState = PLAY_STATE;
+
+    // ===== Core components =====
+    public TileManager tileM;
+    public EntityManager entityM;
+    public HazardManager hazardM;
+    public Player player;
+    public final KeyHandler keyH; // input state read by the simulation each tick
+    public String currentMapPath;
+
+    // ===== Randomness =====
+    // Per-level seed: seedOverride (--seed) wins, then the map's own seed,
+    // otherwise a fresh seed per load that is printed so the run can be repeated.
+    // Entities draw their own seeds from random in spawn order at load time.
+    public Long seedOverride = null;
+    public long seed;
+    public SplittableRandom random;
+
+    // state right after the current map was loaded; restarts restore from it
+    private LevelSnapshot levelStart;
+
+    // bumped by every restart so input recording can log it with the next tick
+    public int restartCount = 0;
+
+    /** Creates a world reading the given input state, with the first map loaded. */
+    public World(KeyHandler keyH) {
+        this(keyH, "/Resource/maps/map01.txt", null);
+    }
+
+    /** Creates a world with its own input state and loads the given map. */
+    public World(String mapPath) {
+        this(new KeyHandler(), mapPath, null);
+    }
+
+    /** Same, with a fixed random seed (replays, solver and benchmark runs). */
+    public World(String mapPath, long seed) {
+        this(new KeyHandler(), mapPath, seed);
+    }
+
+    private World(KeyHandler keyH, String mapPath, Long seedOverride) {
+        this.keyH = keyH;
+        this.seedOverride = seedOverride;
+
+        // components start empty (no current map yet, so TileManager loads
+        // nothing); loadLevel then loads the one map this world is for
+        tileM = new TileManager(this);
+        entityM = new EntityManager(this, keyH);
+        loadLevel(mapPath);
+    }
+
+    // =============================================================
+    // LEVEL LOADING / STATE CHANGES
+    // =============================================================
+    /** Parses the map file and builds every entity, then remembers the start state. */
+    public void loadLevel(String mapPath) {
+        currentMapPath = mapPath;
+        keyH.resetKeys();
+        entityM.clearAll();
+
+        tileM.resetAndLoadMap(currentMapPath);
+        GameLog.info("Loading map from: {}", currentMapPath);
+        seedRandom();
+        GameLog.info("Level seed: {}", seed);
+        hazardM = new HazardManager(this);
+        hazardM.link(0, 0);
+        entityM.loadFromTileManager(tileM);
+
+        player = new Player(this, keyH, entityM);
+
+        for (Entity e : entityM.getAllEntities()) {
+            e.setWorld(this);
+        }
+
+        levelStart = LevelSnapshot.capture(entityM, player);
+        gameState = PLAY_STATE;
+    }
+
+    private void seedRandom() {
+        if (seedOverride != null)
+            seed = seedOverride;
+        else if (tileM.hasMapSeed)
+            seed = tileM.mapSeed;
+        else
+            seed = new SplittableRandom().nextLong();
+        random = new SplittableRandom(seed);
+    }
+
+    /** Puts the current level back to its start state without reloading anything. */
+    public void restartLevel() {
+        keyH.resetKeys();
+        levelStart.restore(entityM, player);
+        gameState = PLAY_STATE;
+        restartCount++;
+    }
+
+    public void triggerGameOver() {
+        GameLog.info("GAME OVER — waiting for restart input");
+        gameState = GAME_OVER_STATE;
+        keyH.resetKeys();
+    }
+
+    public void triggerWin() {
+        GameLog.info("Level Complete!");
+        gameState = GAME_WIN_STATE;
+        keyH.resetKeys();
+    }
+
+    // =============================================================
+    // SIMULATION
+    // =============================================================
+    /** Advances the world by one tick using the current state of {@link #keyH}. */
+    public void step() {
+        if (gameState != PLAY_STATE)
+            return;
+
+        player.update();
+        entityM.update();
+        hazardM.update();
+
+        // Example win condition: step on bottom-right tile
+        int playerCol = (player.getX() + tileSize / 2) / tileSize;
+        int playerRow = (player.getY() + tileSize / 2) / tileSize;
+        if (playerCol == maxWorldCol - 1 && playerRow == maxWorldRow - 1) {
+            triggerWin();
+        }
+    }
+
+    /** One tick driven by a recorded input mask (see InputLog). */
+    public void step(int inputMask) {
+        if ((inputMask & InputLog.RESTART) != 0)
+            restartLevel();
+        keyH.setMask(inputMask & KeyHandler.ALL_KEYS);
+        step();
+    }
+
+    /** Hash of everything the simulation can change; equal runs give equal checksums. */
+    public long checksum() {
+        long h = 0xcbf29ce484222325L; // FNV-1a
+        h = mix(h, gameState);
+        h = mix(h, player.getActiveIndex());
+        for (Entity e : entityM.getAllEntities()) {
+            h = mix(h, e.x);
+            h = mix(h, e.y);
+            h = mix(h, e.targetX);
+            h = mix(h, e.targetY);
+            h = mix(h, (e.active ? 1 : 0) | (e.movingToTarget ? 2 : 0));
+        }
+        for (Button b : entityM.buttons)
+            h = mix(h, b.isPressed() ? 1 : 0);
+        for (Spike s : entityM.spikes)
+            h = mix(h, s.isActive() ? 1 : 0);
+        return h;
+    }
+
+    private static long mix(long h, int value) {
+        for (int i = 0; i < 4; i++) {
+            h ^= (value >>> (i * 8)) & 0xFF;
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+}
@@ -0,0 +1,359 @@
+package solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import entity.Entity;
+import entity.PathFinder;
+import entity.PlayableCharacter;
+import main.World;
+import tile.MapCode;
+
+/**
+ * Coarser search for levels too big for the shortest-solution search. A
+ * character walking over plain floor (no entity, button or spike on it) changes
+ * nothing but where it stands, so such walks are free: a step of the search is
+ * one action taken from anywhere a character can walk to (a push, kill, button
+ * or spike step, or teleport), or a walk that changes where another character
+ * can go. States are merged after walking every character, in order, to the
+ * first tile it can reach, so merged states are reachable from each other.
+ *
+ * Solutions are found in the fewest actions, not the fewest moves; the walks
+ * in between are expanded back into single moves along shortest paths. The
+ * merge can hide a walk that lets another character through, so running out
+ * of states here proves nothing; only the full search shows a level unsolvable.
+ */
+class ActionSearch {
+    private static final int WALK = -1; // via of a node reached by a walk alone
+
+    private final Solver solver;
+    private final World world;
+    private final StateCodec codec;
+    private final int stride, characters, cols, tiles;
+    private final boolean[] floor; // plain floor by tile, ignoring entities
+    private final int keys;
+
+    // ===== Nodes: exact state, region key (table compares these), how it was reached =====
+    private int[] states;
+    private int[] regionKeys;
+    private int[] parent;
+    private int[] walker; // character that walked before the action
+    private int[] target; // tile it walked to
+    private int[] via; // action move, or WALK
+    private int[] depth; // steps from the start
+    private int count = 0;
+
+    // ===== Scratch for the state being expanded =====
+    private final boolean[] blocked; // tiles taken by anything but a character
+    private final int[] at; // tile of each character
+    private final int[] queue; // region BFS
+    private final int[] from; // BFS parent tile, -1 = not reached
+    private final boolean[] reachable; // region of the character being expanded
+    private final int[] scratch;
+    private final int[] played; // state after an action
+    private final int[] savedAt;
+    private final boolean[] savedBlocked;
+
+    ActionSearch(Solver solver) {
+        this.solver = solver;
+        world = Solver.newWorld(solver.mapPath);
+        codec = new StateCodec(world);
+        stride = codec.length;
+        characters = world.entityM.characters.size();
+        cols = world.maxWorldCol;
+        tiles = world.maxWorldCol * world.maxWorldRow;
+        keys = world.entityM.keys.size();
+
+        floor = new boolean[tiles];
+        for (int tile = 0; tile < tiles; tile++) {
+            int col = tile % cols, row = tile / cols;
+            floor[tile] = KeyDistances.isFloor(world, col, row)
+                    && !MapCode.is(world.tileM.mapCodes[col][row], MapCode.BUTTON | MapCode.HAZARD);
+        }
+        blocked = new boolean[tiles];
+        at = new int[characters];
+        queue = new int[tiles];
+        from = new int[tiles];
+        reachable = new boolean[tiles];
+        scratch = new int[stride];
+        played = new int[stride];
+        savedAt = new int[characters];
+        savedBlocked = new boolean[tiles];
+    }
+
+    void run(Solver.Result result) {
+        states = new int[stride * 1024];
+        regionKeys = new int[stride * 1024];
+        parent = new int[1024];
+        walker = new int[1024];
+        target = new int[1024];
+        via = new int[1024];
+        depth = new int[1024];
+        TranspositionTable table = new TranspositionTable(1024);
+        Solver.OpenList open = new Solver.OpenList();
+
+        codec.encode(states, 0);
+        load(states, 0);
+        regionKey(regionKeys, 0);
+        table.putIfAbsent(codec.hash(regionKeys, 0), regionKeys, 0, regionKeys, stride, 0);
+        parent[0] = -1;
+        count = 1;
+        open.add(solver.lowerBound(states, 0), 0);
+
+        try {
+            for (int node; (node = open.poll()) >= 0;) {
+                int win = expand(node, table, open, result);
+                if (win != 0) {
+                    if (win > 0) {
+                        result.outcome = Solver.SOLVED;
+                        result.moves = path(node, walker[count], target[count], via[count]);
+                    } else {
+                        result.outcome = Solver.GAVE_UP;
+                    }
+                    return;
+                }
+            }
+            result.outcome = Solver.GAVE_UP; // see the class comment
+        } finally {
+            result.states = count;
+        }
+    }
+
+    /** Adds every state one step away; 1 on a win (details in slot count), -1 at the state limit, else 0. */
+    private int expand(int node, TranspositionTable table, Solver.OpenList open, Solver.Result result) {
+        int offset = node * stride;
+        for (int c = 0; c < characters; c++) {
+            load(states, offset);
+            int start = at[c];
+            int size = region(c);
+            int[] tilesInRegion = Arrays.copyOf(queue, size);
+            Arrays.fill(reachable, false);
+            for (int tile : tilesInRegion)
+                reachable[tile] = true;
+
+            // walks that change what the others can reach
+            for (int i = 1; i < size; i++) {
+                at[c] = tilesInRegion[i];
+                System.arraycopy(states, offset, scratch, 0, stride);
+                scratch[c] = at[c];
+                int added = add(node, c, at[c], WALK, scratch, table, open);
+                if (added < 0)
+                    return -1;
+            }
+            at[c] = start;
+
+            // actions from every tile of the region
+            for (int tile : tilesInRegion) {
+                System.arraycopy(states, offset, scratch, 0, stride);
+                scratch[c] = tile;
+                boolean dirty = true;
+                for (int move : solver.candidates) {
+                    if (Moves.character(move) != c || skip(move, c, tile))
+                        continue;
+                    if (dirty) {
+                        codec.decode(scratch, 0);
+                        dirty = false;
+                    }
+                    if (!Moves.play(world, move, null))
+                        continue;
+                    dirty = true;
+                    result.nodes++;
+
+                    if (world.gameState == World.GAME_WIN_STATE) {
+                        ensureCapacity(count + 1);
+                        walker[count] = c;
+                        target[count] = tile;
+                        via[count] = move;
+                        return 1;
+                    }
+                    if (world.gameState != World.PLAY_STATE || world.entityM.keys.size() != keys)
+                        continue;
+                    codec.encode(played, 0);
+                    if (add(node, c, tile, move, played, table, open) < 0)
+                        return -1;
+                }
+            }
+        }
+        return 0;
+    }
+
+    /** Walks within the region are not actions; neither is a teleport that only does such a walk. */
+    private boolean skip(int move, int c, int tile) {
+        int col = tile % cols, row = tile / cols;
+        if (!Moves.isTeleport(move)) {
+            int dir = move & 0xFF;
+            int toCol = col + PathFinder.DX[dir], toRow = row + PathFinder.DY[dir];
+            if (toCol < 0 || toCol >= cols || toRow < 0 || toRow * cols >= tiles)
+                return true;
+            int to = toRow * cols + toCol;
+            return floor[tile] && !blocked[tile] && free(to, c);
+        }
+        int source = (move >>> 5) & 0x1F, destination = move & 0x1F;
+        if (source != Moves.RADIUS * Moves.SIDE + Moves.RADIUS)
+            return false; // the wizard teleporting something else
+        int dstCol = col + destination % Moves.SIDE - Moves.RADIUS;
+        int dstRow = row + destination / Moves.SIDE - Moves.RADIUS;
+        if (dstCol < 0 || dstCol >= cols || dstRow < 0 || dstRow * cols >= tiles)
+            return true;
+        return reachable[dstRow * cols + dstCol]; // itself onto a tile it can walk to
+    }
+
+    /** Stores the state reached from node unless its regions are known; -1 at the state limit. */
+    private int add(int node, int c, int tile, int move, int[] state, TranspositionTable table,
+            Solver.OpenList open) {
+        if (solver.keyDistances.isDead(state[codec.keyMover]))
+            return 0;
+        ensureCapacity(count + 1);
+        int offset = count * stride;
+        System.arraycopy(state, 0, states, offset, stride);
+
+        // regions of the new state, then restore the scratch of the state being expanded
+        System.arraycopy(at, 0, savedAt, 0, characters);
+        System.arraycopy(blocked, 0, savedBlocked, 0, tiles);
+        if (move != WALK)
+            load(states, offset); // a walk leaves blocked[] as it is, with at[c] already moved
+        regionKey(regionKeys, offset);
+        System.arraycopy(savedAt, 0, at, 0, characters);
+        System.arraycopy(savedBlocked, 0, blocked, 0, tiles);
+
+        // first come, first kept: a node's children walk from its stored state,
+        // so it is never replaced by a shorter way there
+        if (table.putIfAbsent(codec.hash(regionKeys, offset), regionKeys, offset, regionKeys, stride, count) >= 0)
+            return 0;
+        int reached = count++;
+        parent[reached] = node;
+        walker[reached] = c;
+        target[reached] = tile;
+        via[reached] = move;
+        depth[reached] = depth[node] + 1;
+        open.add(depth[reached] + solver.lowerBound(states, reached * stride), reached);
+        return count >= solver.maxStates ? -1 : 1;
+    }
+
+    // =============================================================
+    // REGIONS
+    // =============================================================
+    /** Decodes the state and notes which tiles are taken and where each character stands. */
+    private void load(int[] state, int offset) {
+        codec.decode(state, offset);
+        Arrays.fill(blocked, false);
+        for (int tile = 0; tile < tiles; tile++) {
+            for (Entity e : world.entityM.grid.at(tile % cols, tile / cols)) {
+                if (e.active && !(e instanceof PlayableCharacter))
+                    blocked[tile] = true;
+            }
+        }
+        ArrayList<PlayableCharacter> list = world.entityM.characters;
+        for (int c = 0; c < characters; c++)
+            at[c] = list.get(c).active ? codec.tileOf(list.get(c)) : -1;
+    }
+
+    private boolean free(int tile, int c) {
+        if (!floor[tile] || blocked[tile])
+            return false;
+        for (int other = 0; other < characters; other++) {
+            if (other != c && at[other] == tile)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Tiles character c can walk to for free, in BFS order in queue[0 .. size),
+     * with from[] linking each back towards its start. Just its own tile when
+     * it stands on something (a button, a spike) that leaving would change.
+     */
+    private int region(int c) {
+        Arrays.fill(from, -1);
+        int start = at[c];
+        if (start < 0)
+            return 0;
+        queue[0] = start;
+        from[start] = start;
+        int size = 1;
+        if (!floor[start] || blocked[start])
+            return size;
+        for (int head = 0; head < size; head++) {
+            int tile = queue[head];
+            int col = tile % cols, row = tile / cols;
+            for (int dir = 0; dir < 4; dir++) {
+                int toCol = col + PathFinder.DX[dir], toRow = row + PathFinder.DY[dir];
+                if (toCol < 0 || toCol >= cols || toRow < 0 || toRow * cols >= tiles)
+                    continue;
+                int to = toRow * cols + toCol;
+                if (from[to] < 0 && free(to, c)) {
+                    from[to] = tile;
+                    queue[size++] = to;
+                }
+            }
+        }
+        return size;
+    }
+
+    /** The state after each character in turn walks to the lowest tile it can reach; moves at[]. */
+    private void regionKey(int[] out, int offset) {
+        System.arraycopy(states, offset, out, offset, stride);
+        for (int c = 0; c < characters; c++) {
+            int size = region(c);
+            if (size == 0)
+                continue;
+            int first = Integer.MAX_VALUE;
+            for (int i = 0; i < size; i++)
+                first = Math.min(first, queue[i]);
+            at[c] = first;
+            out[offset + c] = first;
+        }
+    }
+
+    // =============================================================
+    // NODE STORAGE / SOLUTION
+    // =============================================================
+    private void ensureCapacity(int nodes) {
+        if (nodes <= parent.length)
+            return;
+        int capacity = parent.length * 2;
+        states = Arrays.copyOf(states, capacity * stride);
+        regionKeys = Arrays.copyOf(regionKeys, capacity * stride);
+        parent = Arrays.copyOf(parent, capacity);
+        walker = Arrays.copyOf(walker, capacity);
+        target = Arrays.copyOf(target, capacity);
+        via = Arrays.copyOf(via, capacity);
+        depth = Arrays.copyOf(depth, capacity);
+    }
+
+    /** Single moves from the start to the win: each step's walk along a shortest path, then its action. */
+    private int[] path(int node, int lastWalker, int lastTarget, int lastMove) {
+        ArrayList<Integer> steps = new ArrayList<>();
+        for (int n = node; n >= 0; n = parent[n])
+            steps.add(n);
+
+        ArrayList<Integer> moves = new ArrayList<>();
+        for (int i = steps.size() - 1; i >= 0; i--) {
+            int n = steps.get(i);
+            boolean last = i == 0;
+            int c = last ? lastWalker : walker[steps.get(i - 1)];
+            int tile = last ? lastTarget : target[steps.get(i - 1)];
+            int move = last ? lastMove : via[steps.get(i - 1)];
+
+            load(states, n * stride);
+            region(c);
+            ArrayList<Integer> walk = new ArrayList<>();
+            for (int t = tile; t != at[c]; t = from[t])
+                walk.add(Moves.walk(c, direction(from[t], t)));
+            for (int j = walk.size() - 1; j >= 0; j--)
+                moves.add(walk.get(j));
+            if (move != WALK)
+                moves.add(move);
+        }
+        return moves.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private int direction(int fromTile, int toTile) {
+        int dx = toTile % cols - fromTile % cols, dy = toTile / cols - fromTile / cols;
+        for (int dir = 0; dir < 4; dir++) {
+            if (PathFinder.DX[dir] == dx && PathFinder.DY[dir] == dy)
+                return dir;
+        }
+        throw new IllegalStateException("tiles not adjacent");
+    }
+}
@@ -0,0 +1,54 @@
+package solver;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Lock-free set of 64-bit state hashes for the parallel search, kept off the
+ * Java heap so tens of millions of entries cost no GC work. Open addressing
+ * with linear probing; a slot is claimed with a single compare-and-set, and
+ * nothing is ever removed. The capacity is fixed up front.
+ *
+ * Only the hash is stored, so two different states with the same 64-bit
+ * Zobrist hash would be merged; at the sizes searched here that is
+ * vanishingly unlikely, and solutions are re-checked by a replay anyway.
+ */
+public class ConcurrentStateSet {
+    private static final VarHandle SLOTS = MethodHandles.byteBufferViewVarHandle(long[].class,
+            ByteOrder.nativeOrder());
+    private static final long EMPTY = 0;
+
+    private final ByteBuffer table;
+    private final int mask;
+
+    public ConcurrentStateSet(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(16, expected * 2 - 1)) << 1;
+        if (capacity <= 0 || capacity > (Integer.MAX_VALUE >> 3) + 1)
+            throw new IllegalArgumentException("state set too large: " + expected);
+        table = ByteBuffer.allocateDirect(capacity * Long.BYTES).order(ByteOrder.nativeOrder());
+        mask = capacity - 1;
+    }
+
+    /** Adds the hash; returns false if it was already present. Safe from any thread. */
+    public boolean add(long hash) {
+        if (hash == EMPTY)
+            hash = 1; // 0 marks an empty slot
+        for (int slot = mix(hash) & mask;; slot = (slot + 1) & mask) {
+            int index = slot * Long.BYTES;
+            long current = (long) SLOTS.getAcquire(table, index);
+            if (current == EMPTY) {
+                if (SLOTS.compareAndSet(table, index, EMPTY, hash))
+                    return true;
+                current = (long) SLOTS.getAcquire(table, index); // lost the race for this slot
+            }
+            if (current == hash)
+                return false;
+        }
+    }
+
+    private static int mix(long hash) {
+        return (int) (hash ^ (hash >>> 32));
+    }
+}
@@ -0,0 +1,94 @@
+package solver;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+import entity.Chest;
+import entity.Entity;
+import main.World;
+import tile.MapCode;
+
+/**
+ * Lower bound on the moves still needed to deliver the key, by the tile it is
+ * on, found once per level from the static walls. Starting at each chest, the
+ * key is "pulled" backwards wherever a push could have brought it (the tile
+ * behind it must take the pusher) and, on levels with a wizard, wherever a
+ * teleport could have: a wizard's 5x5 square lets one teleport move the key up
+ * to {@link #TELEPORT_REACH} tiles in each direction, over walls.
+ *
+ * Every move shifts the key by at most one step of this graph, so the bound
+ * never overestimates and changes by at most one per move (A* needs both).
+ * A key resting on a tile the pull never reaches is stuck for good, so the
+ * search drops such states.
+ */
+public class KeyDistances {
+    static final int TELEPORT_REACH = Moves.RADIUS * 2;
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private final int[] distance; // by tile index (row * cols + col)
+
+    public KeyDistances(World world, boolean hasWizard) {
+        int cols = world.maxWorldCol, rows = world.maxWorldRow, ts = world.tileSize;
+        distance = new int[cols * rows];
+        Arrays.fill(distance, UNREACHABLE);
+
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (Entity e : world.entityM.worldEntities) {
+            if (e instanceof Chest) {
+                int tile = (e.y / ts) * cols + e.x / ts;
+                if (distance[tile] == UNREACHABLE) {
+                    distance[tile] = 0;
+                    queue.add(tile);
+                }
+            }
+        }
+
+        int[] dx = { 1, -1, 0, 0 };
+        int[] dy = { 0, 0, 1, -1 };
+        while (!queue.isEmpty()) {
+            int tile = queue.poll();
+            int col = tile % cols, row = tile / cols;
+            int next = distance[tile] + 1;
+            for (int d = 0; d < 4; d++) {
+                // key came from (col - dx, row - dy), pushed from (col - 2dx, row - 2dy)
+                int fromCol = col - dx[d], fromRow = row - dy[d];
+                if (!isFloor(world, fromCol, fromRow) || !isFloor(world, fromCol - dx[d], fromRow - dy[d]))
+                    continue;
+                reach(fromRow * cols + fromCol, next, queue);
+            }
+            // a teleport drops onto non-colliding tiles only (Wizard.isTileWalkable)
+            if (!hasWizard || world.tileM.isTileCollidable(col, row))
+                continue;
+            for (int r = Math.max(0, row - TELEPORT_REACH); r <= Math.min(rows - 1, row + TELEPORT_REACH); r++) {
+                for (int c = Math.max(0, col - TELEPORT_REACH); c <= Math.min(cols - 1, col + TELEPORT_REACH); c++) {
+                    if (isFloor(world, c, r))
+                        reach(r * cols + c, next, queue);
+                }
+            }
+        }
+    }
+
+    private void reach(int tile, int d, ArrayDeque<Integer> queue) {
+        if (distance[tile] == UNREACHABLE) {
+            distance[tile] = d;
+            queue.add(tile);
+        }
+    }
+
+    /** Same tile test as EntityManager.canMoveTo, without the entities. */
+    static boolean isFloor(World world, int col, int row) {
+        if (col < 0 || col >= world.maxWorldCol || row < 0 || row >= world.maxWorldRow)
+            return false;
+        return !world.tileM.isTileCollidable(col, row)
+                || MapCode.is(world.tileM.mapCodes[col][row], MapCode.WALKABLE);
+    }
+
+    /** Fewest moves that could bring a key on this tile to a chest, or UNREACHABLE. */
+    public int distance(int tile) {
+        return distance[tile];
+    }
+
+    public boolean isDead(int tile) {
+        return distance[tile] == UNREACHABLE;
+    }
+}
@@ -0,0 +1,171 @@
+package solver;
+
+import java.util.ArrayList;
+
+import entity.Entity;
+import entity.EntityManager;
+import entity.PathFinder;
+import entity.PlayableCharacter;
+import entity.Wizard;
+import main.KeyHandler;
+import main.World;
+
+/**
+ * The moves a solver may make, played through the real input path: every move
+ * is a sequence of KeyHandler masks fed to {@link World#step(int)}, followed by
+ * idle ticks until nothing is sliding any more. Push, kill, spike, button and
+ * teleport rules are therefore exactly the game's own.
+ *
+ * A move is packed into an int: a walk is (character, direction), a teleport
+ * is (wizard, source offset, destination offset) with offsets inside the
+ * wizard's teleport square. Switching characters is free and not a move.
+ */
+public final class Moves {
+    static final int TELEPORT = 1 << 20;
+    static final int RADIUS = 2; // Wizard.TELEPORT_RADIUS
+    static final int SIDE = RADIUS * 2 + 1;
+    static final int MAX_SETTLE_TICKS = 120;
+
+    // direction index (PathFinder order: right, left, down, up) -> input mask / name
+    private static final int[] DIRECTION_MASKS = { KeyHandler.RIGHT, KeyHandler.LEFT, KeyHandler.DOWN, KeyHandler.UP };
+    private static final String[] DIRECTION_NAMES = { "R", "L", "D", "U" };
+
+    private Moves() {
+    }
+
+    public static int walk(int character, int direction) {
+        return (character << 8) | direction;
+    }
+
+    public static int teleport(int wizard, int source, int destination) {
+        return TELEPORT | (wizard << 10) | (source << 5) | destination;
+    }
+
+    public static boolean isTeleport(int move) {
+        return (move & TELEPORT) != 0;
+    }
+
+    public static int character(int move) {
+        return isTeleport(move) ? (move >>> 10) & 0x3FF : move >>> 8;
+    }
+
+    // =============================================================
+    // PLAYING MOVES
+    // =============================================================
+    /**
+     * Plays the move on a settled world. Returns false without touching the
+     * world if the move is obviously impossible (wall, dead character); a
+     * played move may still turn out to change nothing.
+     */
+    public static boolean play(World world, int move, MaskSink sink) {
+        EntityManager entityM = world.entityM;
+        int who = character(move);
+        if (who >= entityM.characters.size())
+            return false;
+        PlayableCharacter pc = entityM.characters.get(who);
+        if (!pc.active)
+            return false;
+        int ts = world.tileSize;
+        int col = pc.x / ts, row = pc.y / ts;
+
+        if (!isTeleport(move)) {
+            int dir = move & 0xFF;
+            if (!entityM.canMoveTo(pc, col + PathFinder.DX[dir], row + PathFinder.DY[dir]))
+                return false;
+            select(world, who, sink);
+            tick(world, DIRECTION_MASKS[dir], sink);
+            settle(world, sink);
+            return true;
+        }
+
+        if (!(pc instanceof Wizard wizard))
+            return false;
+        int source = (move >>> 5) & 0x1F, destination = move & 0x1F;
+        int srcCol = col + source % SIDE - RADIUS, srcRow = row + source / SIDE - RADIUS;
+        int dstCol = col + destination % SIDE - RADIUS, dstRow = row + destination / SIDE - RADIUS;
+        if (source == destination || entityM.grid.at(srcCol, srcRow).isEmpty()
+                || world.tileM.isTileCollidable(dstCol, dstRow))
+            return false;
+
+        select(world, who, sink);
+        tick(world, KeyHandler.TELEPORT, sink); // enter teleport mode, cursor on the wizard
+        moveCursor(world, col, row, srcCol, srcRow, sink);
+        tick(world, KeyHandler.TELEPORT, sink); // pick what is under the cursor
+        if (wizard.isSelectingDestination()) {
+            moveCursor(world, srcCol, srcRow, dstCol, dstRow, sink);
+            tick(world, KeyHandler.TELEPORT, sink); // drop it there
+        }
+        if (wizard.isTeleportMode()) {
+            tick(world, KeyHandler.ESCAPE, sink); // nothing to pick, or the spot was refused
+            return true;
+        }
+        settle(world, sink);
+        return true;
+    }
+
+    private static void select(World world, int who, MaskSink sink) {
+        if (sink == null) {
+            world.player.setActiveIndex(who);
+            return;
+        }
+        // the way a player gets there: tap switch until the character is active
+        while (world.player.getActiveIndex() != who)
+            tick(world, KeyHandler.SWITCH, sink);
+    }
+
+    private static void moveCursor(World world, int col, int row, int toCol, int toRow, MaskSink sink) {
+        for (; col < toCol; col++)
+            tick(world, KeyHandler.RIGHT, sink);
+        for (; col > toCol; col--)
+            tick(world, KeyHandler.LEFT, sink);
+        for (; row < toRow; row++)
+            tick(world, KeyHandler.DOWN, sink);
+        for (; row > toRow; row--)
+            tick(world, KeyHandler.UP, sink);
+    }
+
+    /** Idles until no character or prop is sliding to its tile any more. */
+    private static void settle(World world, MaskSink sink) {
+        for (int t = 0; t < MAX_SETTLE_TICKS && world.gameState == World.PLAY_STATE && sliding(world.entityM); t++)
+            tick(world, 0, sink);
+    }
+
+    private static boolean sliding(EntityManager entityM) {
+        ArrayList<PlayableCharacter> characters = entityM.characters;
+        for (int i = 0; i < characters.size(); i++) {
+            if (characters.get(i).movingToTarget)
+                return true;
+        }
+        ArrayList<Entity> props = entityM.worldEntities;
+        for (int i = 0; i < props.size(); i++) {
+            if (props.get(i).movingToTarget)
+                return true;
+        }
+        return false;
+    }
+
+    private static void tick(World world, int mask, MaskSink sink) {
+        if (sink != null)
+            sink.add(mask);
+        world.step(mask);
+    }
+
+    /** Receives the input mask of every tick a move plays (solution export). */
+    public interface MaskSink {
+        void add(int mask);
+    }
+
+    // =============================================================
+    // DESCRIBING MOVES
+    // =============================================================
+    /** Short text for a move made from a world in its pre-move state, e.g. "R" or "T(3,4)->(5,4)". */
+    public static String describe(World world, int move) {
+        if (!isTeleport(move))
+            return DIRECTION_NAMES[move & 0xFF];
+        PlayableCharacter pc = world.entityM.characters.get(character(move));
+        int col = pc.x / world.tileSize, row = pc.y / world.tileSize;
+        int source = (move >>> 5) & 0x1F, destination = move & 0x1F;
+        return "T(" + (col + source % SIDE - RADIUS) + "," + (row + source / SIDE - RADIUS) + ")->("
+                + (col + destination % SIDE - RADIUS) + "," + (row + destination / SIDE - RADIUS) + ")";
+    }
+}
@@ -0,0 +1,201 @@
+package solver;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import main.World;
+
+/**
+ * Breadth-first search spread over a ForkJoinPool, one depth level at a time.
+ * The frontier is split into ranges that idle workers steal; each worker plays
+ * moves on its own World and StateCodec (the simulation is single-threaded),
+ * claims new states in a shared {@link ConcurrentStateSet} and appends them
+ * under a shared node counter. Nodes made while expanding depth d are exactly
+ * the id range of depth d + 1, so the next frontier needs no list.
+ *
+ * Node storage is segmented: segments are created on demand with a CAS and a
+ * node's slots are written by the one worker that claimed its id. The join at
+ * the end of each level publishes them to the next level's readers.
+ */
+class ParallelSearch {
+    private static final int LEAF = 16; // frontier nodes a task expands without splitting
+    private static final int SEGMENT_BITS = 14;
+    private static final int SEGMENT = 1 << SEGMENT_BITS;
+
+    private final Solver solver;
+    private final ForkJoinPool pool;
+    private final int stride;
+    private final ConcurrentStateSet visited;
+    private final ConcurrentHashMap<Thread, Worker> workers = new ConcurrentHashMap<>(); // dropped with the search
+
+    // ===== Nodes (id -> state, parent id, move that reached it) =====
+    private final AtomicReferenceArray<int[]> states;
+    private final AtomicReferenceArray<int[]> parents;
+    private final AtomicReferenceArray<int[]> moves;
+    private final AtomicInteger count = new AtomicInteger();
+    private final AtomicLong nodes = new AtomicLong(); // moves played
+
+    // ===== Outcome of the current level =====
+    private volatile boolean stop = false;
+    private volatile int winParent = -1;
+    private volatile int winMove;
+
+    /** Per-thread simulation and scratch state. */
+    private final class Worker {
+        final World world = Solver.newWorld(solver.mapPath);
+        final StateCodec codec = new StateCodec(world);
+        final int[] scratch = new int[stride];
+        final int keys = world.entityM.keys.size();
+    }
+
+    ParallelSearch(Solver solver, ForkJoinPool pool) {
+        this.solver = solver;
+        this.pool = pool;
+        this.stride = solver.stride;
+        this.visited = new ConcurrentStateSet(solver.maxStates);
+        int segments = solver.maxStates / SEGMENT + 2;
+        states = new AtomicReferenceArray<>(segments);
+        parents = new AtomicReferenceArray<>(segments);
+        moves = new AtomicReferenceArray<>(segments);
+    }
+
+    void run(Solver.Result result) {
+        Worker first = new Worker();
+        first.codec.encode(first.scratch, 0);
+        visited.add(first.codec.hash(first.scratch, 0));
+        store(0, first.scratch, -1, 0);
+        count.set(1);
+
+        int from = 0;
+        try {
+            while (from < count.get()) {
+                int to = count.get();
+                pool.invoke(new Expand(from, to));
+                if (winParent >= 0) {
+                    result.outcome = Solver.SOLVED;
+                    result.moves = path(winParent, winMove);
+                    return;
+                }
+                if (stop) {
+                    result.outcome = Solver.GAVE_UP;
+                    return;
+                }
+                from = to;
+            }
+            result.outcome = Solver.UNSOLVABLE;
+        } finally {
+            result.states = Math.min(count.get(), solver.maxStates);
+            result.nodes = nodes.get();
+        }
+    }
+
+    private final class Expand extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int from, to;
+
+        Expand(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > LEAF) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new Expand(from, mid), new Expand(mid, to));
+                return;
+            }
+            Worker w = workers.computeIfAbsent(Thread.currentThread(), t -> new Worker());
+            for (int node = from; node < to && !stop; node++)
+                expand(w, node);
+        }
+    }
+
+    private void expand(Worker w, int node) {
+        int[] segment = states.get(node >>> SEGMENT_BITS);
+        int offset = (node & (SEGMENT - 1)) * stride;
+        World world = w.world;
+        boolean dirty = true;
+        long played = 0;
+
+        for (int move : solver.candidates) {
+            if (stop)
+                break;
+            if (dirty) {
+                w.codec.decode(segment, offset);
+                dirty = false;
+            }
+            if (!Moves.play(world, move, null))
+                continue;
+            dirty = true;
+            played++;
+
+            if (world.gameState == World.GAME_WIN_STATE) {
+                win(node, move);
+                break;
+            }
+            if (world.gameState != World.PLAY_STATE || world.entityM.keys.size() != w.keys)
+                continue;
+
+            w.codec.encode(w.scratch, 0);
+            if (solver.keyDistances.isDead(w.scratch[w.codec.keyMover]))
+                continue;
+            if (!visited.add(w.codec.hash(w.scratch, 0)))
+                continue;
+            int id = count.getAndIncrement();
+            if (id >= solver.maxStates) {
+                stop = true;
+                break;
+            }
+            store(id, w.scratch, node, move);
+        }
+        nodes.addAndGet(played);
+    }
+
+    private synchronized void win(int parent, int move) {
+        // any win found while expanding this level is optimal; keep the first
+        if (winParent < 0) {
+            winMove = move;
+            winParent = parent;
+        }
+        stop = true;
+    }
+
+    // =============================================================
+    // NODE STORAGE
+    // =============================================================
+    private void store(int id, int[] state, int parent, int move) {
+        int s = id >>> SEGMENT_BITS, i = id & (SEGMENT - 1);
+        System.arraycopy(state, 0, segment(states, s, SEGMENT * stride), i * stride, stride);
+        segment(parents, s, SEGMENT)[i] = parent;
+        segment(moves, s, SEGMENT)[i] = move;
+    }
+
+    private static int[] segment(AtomicReferenceArray<int[]> segments, int s, int length) {
+        int[] segment = segments.get(s);
+        if (segment == null) {
+            segments.compareAndSet(s, null, new int[length]);
+            segment = segments.get(s);
+        }
+        return segment;
+    }
+
+    private int parent(int id) {
+        return parents.get(id >>> SEGMENT_BITS)[id & (SEGMENT - 1)];
+    }
+
+    private int[] path(int node, int lastMove) {
+        int length = 1;
+        for (int n = node; parent(n) >= 0; n = parent(n))
+            length++;
+        int[] path = new int[length];
+        path[--length] = lastMove;
+        for (int n = node; parent(n) >= 0; n = parent(n))
+            path[--length] = moves.get(n >>> SEGMENT_BITS)[n & (SEGMENT - 1)];
+        return path;
+    }
+}
@@ -0,0 +1,383 @@
+package solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import entity.PlayableCharacter;
+import entity.Wizard;
+import main.GameLog;
+import main.World;
+
+/**
+ * Offline puzzle solver for a simplified game with the enemies frozen: shows a
+ * level can be won there and finds the fewest moves that deliver the key to
+ * the chest, or failing that an upper bound. A move is one step (or push) of any
+ * character, or one wizard teleport; switching characters is free. Enemies are
+ * frozen in place, so they act as walls the knight can clear and everyone
+ * else must avoid.
+ *
+ * The search is an A* search over settled level states (see
+ * {@link StateCodec}), each reached by playing a move through the real game
+ * rules (see {@link Moves}), guided by how far the key is from the chest (see
+ * {@link KeyDistances}). Reached states go into a transposition table, and
+ * states with the key where it can never reach the chest are dropped. With
+ * more than one thread the levels of a breadth-first search are expanded in
+ * parallel instead (see {@link ParallelSearch}). If the state limit is reached
+ * first, a coarser search that only counts actions (see {@link ActionSearch})
+ * still looks for some solution. Every solution is checked by playing it from
+ * a fresh load.
+ *
+ * Because enemies never move here, a result is about that simplified game: a
+ * solution may be blocked by a patrol in the real one, and a level with no
+ * solution here might be winnable by timing a patrol. The report replays each
+ * solution's inputs with enemies moving and says whether they still win; that
+ * checks one play-through, not the real level's solvability.
+ *
+ * Usage: java solver.Solver [--threads n] [--max-states n] [/Resource/maps/mapNN.txt]...
+ * (no maps = every map in Resource/maps; threads default to the core count).
+ * Exits with status 1 if a level with a key has no solution or could not be
+ * decided within the state limit.
+ */
+public class Solver {
+    public static final int DEFAULT_MAX_STATES = 2_000_000;
+
+    // ===== Result of one search =====
+    public static final int SOLVED = 0;
+    public static final int UNSOLVABLE = 1; // every reachable state explored
+    public static final int GAVE_UP = 2; // state limit reached
+    public static final int NO_KEY = 3; // nothing to deliver
+
+    public static class Result {
+        public int outcome;
+        public int[] moves; // solution, when SOLVED
+        public boolean shortest; // moves is a shortest solution (false when found by ActionSearch)
+        public int states; // distinct states stored
+        public long nodes; // moves played during the search
+        public long nanos;
+    }
+
+    final String mapPath;
+    final int maxStates;
+    private final World world;
+    private final StateCodec codec;
+    final KeyDistances keyDistances; // lower bound on the moves left, by key tile
+    final int[] candidates; // every move tried from each state
+
+    // ===== Search nodes (state i lives at pool[i * stride]) =====
+    final int stride;
+    private int[] pool;
+    private int[] parent;
+    private int[] via; // move that reached the node
+    private int[] depth; // moves from the start along the best path found so far
+    private int count = 0;
+
+    public Solver(String mapPath, int maxStates) {
+        this.mapPath = mapPath;
+        this.maxStates = maxStates;
+        world = newWorld(mapPath);
+        codec = new StateCodec(world);
+        stride = codec.length;
+
+        boolean hasWizard = false;
+        ArrayList<Integer> moves = new ArrayList<>();
+        ArrayList<PlayableCharacter> characters = world.entityM.characters;
+        for (int i = 0; i < characters.size(); i++) {
+            for (int dir = 0; dir < 4; dir++)
+                moves.add(Moves.walk(i, dir));
+            if (characters.get(i) instanceof Wizard) {
+                hasWizard = true;
+                for (int src = 0; src < Moves.SIDE * Moves.SIDE; src++) {
+                    for (int dst = 0; dst < Moves.SIDE * Moves.SIDE; dst++)
+                        moves.add(Moves.teleport(i, src, dst));
+                }
+            }
+        }
+        candidates = moves.stream().mapToInt(Integer::intValue).toArray();
+        keyDistances = new KeyDistances(world, hasWizard);
+    }
+
+    static World newWorld(String mapPath) {
+        World world = new World(mapPath, 0);
+        world.entityM.enemiesFrozen = true;
+        return world;
+    }
+
+    // =============================================================
+    // SEARCH
+    // =============================================================
+    public Result solve() {
+        return solve(null);
+    }
+
+    /** Searches on the given pool, or on the calling thread if it is null or has one thread. */
+    public Result solve(ForkJoinPool pool) {
+        Result result = new Result();
+        long start = System.nanoTime();
+        if (codec.keyMover < 0) {
+            result.outcome = NO_KEY;
+        } else if (pool != null && pool.getParallelism() > 1) {
+            new ParallelSearch(this, pool).run(result);
+        } else {
+            search(result);
+            result.states = count;
+        }
+        result.shortest = result.outcome == SOLVED;
+        if (result.outcome == GAVE_UP) {
+            this.pool = null; // drop the full search's nodes before starting over
+            parent = via = depth = null;
+            new ActionSearch(this).run(result);
+        }
+        result.nanos = System.nanoTime() - start;
+        return result;
+    }
+
+    /** Lower bound on the moves left from the encoded state (see KeyDistances). */
+    int lowerBound(int[] state, int offset) {
+        return keyDistances.distance(state[offset + codec.keyMover]);
+    }
+
+    private void search(Result result) {
+        int keys = world.entityM.keys.size();
+        pool = new int[stride * 1024];
+        parent = new int[1024];
+        via = new int[1024];
+        depth = new int[1024];
+        TranspositionTable table = new TranspositionTable(1024);
+        OpenList open = new OpenList();
+
+        codec.encode(pool, 0);
+        table.putIfAbsent(codec.hash(pool, 0), pool, 0, pool, stride, 0);
+        parent[0] = -1;
+        count = 1;
+        if (keyDistances.isDead(pool[codec.keyMover])) {
+            result.outcome = UNSOLVABLE;
+            return;
+        }
+        open.add(lowerBound(pool, 0), 0);
+
+        // A*: expand nodes lowest depth + lower bound first; the bound is
+        // consistent, so the first win found is a shortest one
+        for (int node; (node = open.poll()) >= 0;) {
+            if (depth[node] + lowerBound(pool, node * stride) != open.current())
+                continue; // reached again by a shorter path and queued under a lower f
+            boolean dirty = true;
+            for (int move : candidates) {
+                if (dirty) {
+                    codec.decode(pool, node * stride);
+                    dirty = false;
+                }
+                if (!Moves.play(world, move, null))
+                    continue;
+                dirty = true;
+                result.nodes++;
+
+                if (world.gameState == World.GAME_WIN_STATE) {
+                    result.outcome = SOLVED;
+                    result.moves = path(node, move);
+                    return;
+                }
+                if (world.gameState != World.PLAY_STATE || world.entityM.keys.size() != keys)
+                    continue; // someone died or the key was destroyed
+
+                ensureCapacity(count + 1);
+                int offset = count * stride;
+                codec.encode(pool, offset);
+                if (keyDistances.isDead(pool[offset + codec.keyMover]))
+                    continue;
+                int reached = table.putIfAbsent(codec.hash(pool, offset), pool, offset, pool, stride, count);
+                if (reached < 0) {
+                    reached = count++;
+                } else if (depth[reached] <= depth[node] + 1) {
+                    continue;
+                }
+                parent[reached] = node;
+                via[reached] = move;
+                depth[reached] = depth[node] + 1;
+                open.add(depth[reached] + lowerBound(pool, reached * stride), reached);
+                if (count >= maxStates) {
+                    result.outcome = GAVE_UP;
+                    return;
+                }
+            }
+        }
+        result.outcome = UNSOLVABLE;
+    }
+
+    private void ensureCapacity(int nodes) {
+        if (nodes <= parent.length)
+            return;
+        int capacity = parent.length * 2;
+        pool = Arrays.copyOf(pool, capacity * stride);
+        parent = Arrays.copyOf(parent, capacity);
+        via = Arrays.copyOf(via, capacity);
+        depth = Arrays.copyOf(depth, capacity);
+    }
+
+    /**
+     * Node ids bucketed by f = depth + lower bound. f only ever grows by whole
+     * moves and the bound changes by at most one per move, so a plain array of
+     * growable int stacks serves as the priority queue.
+     */
+    static final class OpenList {
+        private int[][] buckets = new int[16][];
+        private int[] sizes = new int[16];
+        private int current = 0; // f of the bucket being drained
+
+        void add(int f, int node) {
+            if (f >= buckets.length) {
+                int length = Math.max(f + 1, buckets.length * 2);
+                buckets = Arrays.copyOf(buckets, length);
+                sizes = Arrays.copyOf(sizes, length);
+            }
+            int[] bucket = buckets[f];
+            if (bucket == null)
+                bucket = buckets[f] = new int[256];
+            else if (sizes[f] == bucket.length)
+                bucket = buckets[f] = Arrays.copyOf(bucket, bucket.length * 2);
+            bucket[sizes[f]++] = node;
+            current = Math.min(current, f);
+        }
+
+        /** Removes a node with the lowest f, or returns -1 when the list is empty. */
+        int poll() {
+            while (current < buckets.length && sizes[current] == 0)
+                current++;
+            if (current == buckets.length)
+                return -1;
+            return buckets[current][--sizes[current]];
+        }
+
+        /** f of the node poll() last returned. */
+        int current() {
+            return current;
+        }
+    }
+
+    private int[] path(int node, int lastMove) {
+        int length = 1;
+        for (int n = node; parent[n] >= 0; n = parent[n])
+            length++;
+        int[] moves = new int[length];
+        moves[--length] = lastMove;
+        for (int n = node; parent[n] >= 0; n = parent[n])
+            moves[--length] = via[n];
+        return moves;
+    }
+
+    // =============================================================
+    // CHECKING AND PRINTING A SOLUTION
+    // =============================================================
+    /**
+     * Plays the moves from a fresh load the way a player would (switching with
+     * the switch key) and returns the solution as text, grouped by character,
+     * or null if the replay does not end in a win.
+     */
+    public String replay(int[] moves) {
+        World fresh = newWorld(mapPath);
+        int[] ticks = new int[1];
+        Moves.MaskSink sink = mask -> ticks[0]++;
+
+        StringBuilder text = new StringBuilder();
+        int current = -1;
+        for (int move : moves) {
+            int who = Moves.character(move);
+            if (who != current) {
+                if (current >= 0)
+                    text.append(", ");
+                text.append(fresh.entityM.characters.get(who).getRole());
+                current = who;
+            }
+            text.append(' ').append(Moves.describe(fresh, move));
+            Moves.play(fresh, move, sink);
+        }
+        if (fresh.gameState != World.GAME_WIN_STATE)
+            return null;
+        return text + "  [" + ticks[0] + " ticks]";
+    }
+
+    /** Plays the solution's inputs tick for tick with enemies moving; true if that still wins. */
+    public boolean winsWithMovingEnemies(int[] moves) {
+        World frozen = newWorld(mapPath);
+        ArrayList<Integer> masks = new ArrayList<>();
+        for (int move : moves)
+            Moves.play(frozen, move, masks::add);
+
+        World world = new World(mapPath, 0);
+        for (int i = 0; i < masks.size() && world.gameState == World.PLAY_STATE; i++)
+            world.step(masks.get(i));
+        return world.gameState == World.GAME_WIN_STATE;
+    }
+
+    // =============================================================
+    // COMMAND LINE
+    // =============================================================
+    public static void main(String[] args) {
+        int maxStates = DEFAULT_MAX_STATES;
+        int threads = Runtime.getRuntime().availableProcessors();
+        List<String> maps = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--max-states") && i + 1 < args.length)
+                maxStates = Integer.parseInt(args[++i]);
+            else if (args[i].equals("--threads") && i + 1 < args.length)
+                threads = Math.max(1, Integer.parseInt(args[++i]));
+            else
+                maps.add(args[i]);
+        }
+        ForkJoinPool pool = threads > 1 ? new ForkJoinPool(threads) : null;
+        if (maps.isEmpty()) {
+            for (int n = 1; Solver.class.getResource(String.format("/Resource/maps/map%02d.txt", n)) != null; n++)
+                maps.add(String.format("/Resource/maps/map%02d.txt", n));
+        }
+
+        // the game logs every kill, switch and teleport; keep the report readable
+        GameLog.setLevel(GameLog.WARN);
+        System.out.println("Note: enemies are frozen while solving, so results hold for that simplified game,");
+        System.out.println("not for the real one with moving enemies; a solution is not proof the real level can be won.");
+
+        boolean allSolved = true;
+        for (String map : maps) {
+            Solver solver = new Solver(map, maxStates);
+            Result r = solver.solve(pool);
+            String name = map.substring(map.lastIndexOf('/') + 1).replace(".txt", "");
+            double seconds = r.nanos / 1e9;
+            String stats = String.format("%d states, %d nodes in %.2f s (%.0f nodes/s)", r.states, r.nodes, seconds,
+                    r.nodes / Math.max(seconds, 1e-9));
+
+            switch (r.outcome) {
+                case SOLVED -> {
+                    String solution = solver.replay(r.moves);
+                    if (r.shortest)
+                        System.out.printf("%s: solvable with frozen enemies, shortest solution %d moves; %s%n", name,
+                                r.moves.length, stats);
+                    else
+                        System.out.printf("%s: solvable with frozen enemies in at most %d moves (upper bound, "
+                                + "not proven optimal); %s%n", name, r.moves.length, stats);
+                    if (solution != null) {
+                        System.out.println("    " + solution);
+                        System.out.println(solver.winsWithMovingEnemies(r.moves)
+                                ? "    with moving enemies: the same inputs also win"
+                                : "    with moving enemies: the same inputs do not win");
+                    } else {
+                        System.out.println("    replay from a fresh load did not win: " + Arrays.toString(r.moves));
+                        allSolved = false;
+                    }
+                }
+                case UNSOLVABLE -> {
+                    System.out.printf("%s: NO SOLUTION; %s%n", name, stats);
+                    allSolved = false;
+                }
+                case GAVE_UP -> {
+                    System.out.printf("%s: undecided, state limit %d reached in both searches; %s%n", name,
+                            maxStates, stats);
+                    allSolved = false;
+                }
+                default -> System.out.printf("%s: no key to deliver, skipped%n", name);
+            }
+        }
+        if (pool != null)
+            pool.shutdown();
+        System.exit(allSolved ? 0 : 1);
+    }
+}
@@ -0,0 +1,170 @@
+package solver;
+
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+
+import entity.Box;
+import entity.Button;
+import entity.Enemy;
+import entity.Entity;
+import entity.EntityManager;
+import entity.Key;
+import entity.PlayableCharacter;
+import entity.Spike;
+import entity.Wizard;
+import main.World;
+
+/**
+ * Packs the puzzle-relevant part of a settled level into an int[] and back.
+ * A state is the tile of every mover (characters, boxes, keys) followed by
+ * bit words for enemy alive flags, button pressed/was-pressed flags and spike
+ * flags. Everything else (animation, facing, timers) does not change what a
+ * move can do and is left out, so equal puzzles compare equal.
+ *
+ * States are hashed Zobrist-style: one random key per (mover, tile) and per
+ * flag bit, XORed together.
+ */
+public class StateCodec {
+    private final World world;
+    private final int tileSize, cols, tiles;
+
+    // ===== Encoded entities, in state order =====
+    private final Entity[] movers;
+    private final Enemy[] enemies;
+    private final Button[] buttons;
+    private final Spike[] spikes;
+    // list contents at load time; a key destroyed by a spike leaves these lists
+    private final ArrayList<Entity> worldEntities;
+    private final ArrayList<Key> keys;
+    public final int keyMover; // index of the first key in movers, -1 if the level has none
+
+    public final int length; // ints per state
+    private final int flagStart; // index of the first flag word
+
+    // ===== Zobrist keys =====
+    private final long[] moverKeys; // [mover * tiles + tile]
+    private final long[] flagKeys; // [bit]
+
+    public StateCodec(World world) {
+        this.world = world;
+        this.tileSize = world.tileSize;
+        this.cols = world.maxWorldCol;
+        this.tiles = world.maxWorldCol * world.maxWorldRow;
+        EntityManager entityM = world.entityM;
+
+        ArrayList<Entity> m = new ArrayList<>(entityM.characters);
+        for (Entity e : entityM.worldEntities) {
+            if (e instanceof Box)
+                m.add(e);
+        }
+        keyMover = entityM.keys.isEmpty() ? -1 : m.size();
+        m.addAll(entityM.keys);
+        movers = m.toArray(new Entity[0]);
+        enemies = entityM.enemies.toArray(new Enemy[0]);
+        buttons = entityM.buttons.toArray(new Button[0]);
+        spikes = entityM.spikes.toArray(new Spike[0]);
+        worldEntities = new ArrayList<>(entityM.worldEntities);
+        keys = new ArrayList<>(entityM.keys);
+
+        int bits = enemies.length + buttons.length * 2 + spikes.length;
+        flagStart = movers.length;
+        length = movers.length + (bits + 31) / 32;
+
+        SplittableRandom random = new SplittableRandom(0x5eed);
+        moverKeys = new long[movers.length * tiles];
+        for (int i = 0; i < moverKeys.length; i++)
+            moverKeys[i] = random.nextLong();
+        flagKeys = new long[bits];
+        for (int i = 0; i < flagKeys.length; i++)
+            flagKeys[i] = random.nextLong();
+    }
+
+    public int moverCount() {
+        return movers.length;
+    }
+
+    public int tileOf(Entity e) {
+        return (e.y / tileSize) * cols + e.x / tileSize;
+    }
+
+    // =============================================================
+    // ENCODE / DECODE
+    // =============================================================
+    /** Writes the current (settled) world state into out[offset .. offset + length). */
+    public void encode(int[] out, int offset) {
+        for (int i = 0; i < movers.length; i++)
+            out[offset + i] = tileOf(movers[i]);
+        for (int w = flagStart; w < length; w++)
+            out[offset + w] = 0;
+
+        int bit = 0;
+        for (Enemy e : enemies)
+            setBit(out, offset, bit++, e.active);
+        for (Button b : buttons) {
+            setBit(out, offset, bit++, b.isPressed());
+            setBit(out, offset, bit++, b.wasPressedLastFrame());
+        }
+        for (Spike s : spikes)
+            setBit(out, offset, bit++, s.isActive());
+    }
+
+    /**
+     * Puts the world into the encoded state. Only valid for states of a level
+     * still in play (every character and key alive).
+     */
+    public void decode(int[] in, int offset) {
+        for (int i = 0; i < movers.length; i++) {
+            Entity e = movers[i];
+            int tile = in[offset + i];
+            e.x = e.targetX = (tile % cols) * tileSize;
+            e.y = e.targetY = (tile / cols) * tileSize;
+            e.movingToTarget = false;
+            e.active = true;
+        }
+        int bit = 0;
+        for (Enemy e : enemies)
+            e.active = getBit(in, offset, bit++);
+        for (Button b : buttons) {
+            b.setPressed(getBit(in, offset, bit++));
+            b.setWasPressedLastFrame(getBit(in, offset, bit++));
+        }
+        for (Spike s : spikes)
+            s.setActive(getBit(in, offset, bit++));
+
+        EntityManager entityM = world.entityM;
+        if (entityM.keys.size() != keys.size()) {
+            entityM.keys.clear();
+            entityM.keys.addAll(keys);
+            entityM.worldEntities.clear();
+            entityM.worldEntities.addAll(worldEntities);
+        }
+        for (PlayableCharacter pc : entityM.characters) {
+            if (pc instanceof Wizard w)
+                w.cancelTeleport();
+        }
+        world.keyH.resetKeys();
+        world.gameState = World.PLAY_STATE;
+        entityM.rebuildGrid();
+    }
+
+    /** Zobrist hash of an encoded state. */
+    public long hash(int[] state, int offset) {
+        long h = 0;
+        for (int i = 0; i < movers.length; i++)
+            h ^= moverKeys[i * tiles + state[offset + i]];
+        for (int bit = 0; bit < flagKeys.length; bit++) {
+            if (getBit(state, offset, bit))
+                h ^= flagKeys[bit];
+        }
+        return h;
+    }
+
+    private void setBit(int[] state, int offset, int bit, boolean value) {
+        if (value)
+            state[offset + flagStart + (bit >>> 5)] |= 1 << (bit & 31);
+    }
+
+    private boolean getBit(int[] state, int offset, int bit) {
+        return (state[offset + flagStart + (bit >>> 5)] & (1 << (bit & 31))) != 0;
+    }
+}
@@ -0,0 +1,66 @@
+package solver;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing table from a state's Zobrist hash to its node number, for
+ * spotting states the search has already reached. Equal hashes are confirmed
+ * against the stored state, so a hash collision can never merge two states.
+ */
+public class TranspositionTable {
+    private long[] hashes;
+    private int[] nodes; // node number + 1, 0 = empty slot
+    private int size = 0;
+
+    public TranspositionTable(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(16, expected * 2 - 1)) << 1;
+        hashes = new long[capacity];
+        nodes = new int[capacity];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the node already stored for this state, or stores newNode and
+     * returns -1. The state is compared with pool[node * stride ..].
+     */
+    public int putIfAbsent(long hash, int[] state, int offset, int[] pool, int stride, int newNode) {
+        int mask = hashes.length - 1;
+        for (int slot = mix(hash) & mask;; slot = (slot + 1) & mask) {
+            int node = nodes[slot] - 1;
+            if (node < 0) {
+                hashes[slot] = hash;
+                nodes[slot] = newNode + 1;
+                if (++size * 2 > hashes.length)
+                    grow();
+                return -1;
+            }
+            if (hashes[slot] == hash
+                    && Arrays.equals(pool, node * stride, node * stride + stride, state, offset, offset + stride))
+                return node;
+        }
+    }
+
+    private void grow() {
+        long[] oldHashes = hashes;
+        int[] oldNodes = nodes;
+        hashes = new long[oldHashes.length * 2];
+        nodes = new int[oldNodes.length * 2];
+        int mask = hashes.length - 1;
+        for (int i = 0; i < oldHashes.length; i++) {
+            if (oldNodes[i] == 0)
+                continue;
+            int slot = mix(oldHashes[i]) & mask;
+            while (nodes[slot] != 0)
+                slot = (slot + 1) & mask;
+            hashes[slot] = oldHashes[i];
+            nodes[slot] = oldNodes[i];
+        }
+    }
+
+    private static int mix(long hash) {
+        return (int) (hash ^ (hash >>> 32));
+    }
+}
@@ -0,0 +1,56 @@
+package entity;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import main.GameLog;
+import main.KeyHandler;
+import main.World;
+
+class LevelSnapshotTest {
+
+    @BeforeAll
+    static void quiet() {
+        GameLog.setLevel(GameLog.WARN);
+    }
+
+    @Test
+    void restoreUndoesPlay() {
+        for (int n = 1; n <= 9; n++) {
+            World world = new World(String.format("/Resource/maps/map%02d.txt", n), 5);
+            long start = world.checksum();
+            LevelSnapshot snapshot = LevelSnapshot.capture(world.entityM, world.player);
+
+            // walk, push, switch and let enemies and spikes run
+            int[] script = { KeyHandler.RIGHT, KeyHandler.DOWN, KeyHandler.SWITCH, KeyHandler.LEFT, KeyHandler.UP,
+                    KeyHandler.SWITCH, KeyHandler.RIGHT };
+            for (int t = 0; t < 600; t++)
+                world.step(script[(t / 30) % script.length]);
+            assertNotEquals(start, world.checksum(), "map " + n + " did not change");
+
+            snapshot.restore(world.entityM, world.player);
+            world.gameState = World.PLAY_STATE;
+            assertEquals(start, world.checksum(), "map " + n + " after restore");
+        }
+    }
+
+    @Test
+    void restoredLevelPlaysLikeAFreshLoad() {
+        String map = "/Resource/maps/map05.txt";
+        World fresh = new World(map, 8);
+        World restarted = new World(map, 8);
+        for (int t = 0; t < 300; t++)
+            restarted.step(KeyHandler.LEFT);
+        restarted.restartLevel();
+
+        for (int t = 0; t < 900; t++) {
+            int mask = (t % 90 < 45) ? KeyHandler.RIGHT : KeyHandler.DOWN;
+            fresh.step(mask);
+            restarted.step(mask);
+            assertEquals(fresh.checksum(), restarted.checksum(), "tick " + t);
+        }
+    }
+}
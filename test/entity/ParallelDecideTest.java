@@ -0,0 +1,43 @@
+package entity;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import main.GameLog;
+import main.KeyHandler;
+import main.World;
+
+class ParallelDecideTest {
+    // 40x40, 400 enemies packed around the characters in the middle
+    private static final String MAP = "/Resource/maps/crowd.txt";
+
+    @BeforeAll
+    static void quiet() {
+        GameLog.setLevel(GameLog.WARN);
+    }
+
+    @Test
+    void parallelDecideMatchesSequential() {
+        World parallel = new World(MAP, 7);
+        World sequential = new World(MAP, 7);
+        parallel.entityM.parallelDecideThreshold = 1;
+        sequential.entityM.parallelDecideThreshold = Integer.MAX_VALUE;
+        assertTrue(parallel.entityM.enemies.size() >= EntityManager.PARALLEL_DECIDE_THRESHOLD, "enemy count");
+
+        // walk into the crowd, switch characters and restart after each game over
+        int[] script = { KeyHandler.RIGHT, KeyHandler.DOWN, KeyHandler.SWITCH, KeyHandler.LEFT, KeyHandler.UP,
+                KeyHandler.SWITCH, KeyHandler.RIGHT, KeyHandler.UP };
+        for (int t = 0; t < 1500; t++) {
+            int input = script[(t / 20) % script.length];
+            for (World world : new World[] { parallel, sequential }) {
+                if (world.gameState != World.PLAY_STATE)
+                    world.restartLevel();
+                world.step(input);
+            }
+            assertEquals(sequential.checksum(), parallel.checksum(), "tick " + t);
+        }
+    }
+}
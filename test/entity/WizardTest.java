@@ -0,0 +1,94 @@
+package entity;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import main.GameLog;
+import main.KeyHandler;
+import main.World;
+
+/** Teleport targets resolve the way they did before the occupancy grid: characters first. */
+class WizardTest {
+    static final String MAP = "/Resource/maps/map08.txt"; // key at (13,7)
+
+    @BeforeAll
+    static void quiet() {
+        GameLog.setLevel(GameLog.WARN);
+    }
+
+    @Test
+    void teleportsACharacterStandingOnAButton() {
+        World world = newWorld();
+        world.entityM.addButton(6, 7, 5); // added buttons are indexed in the grid, under whoever steps on them
+        Button button = world.entityM.buttons.get(world.entityM.buttons.size() - 1);
+        PlayableCharacter thief = character(world, Thief.class);
+        place(world, thief, 6, 7);
+        place(world, character(world, Wizard.class), 6, 5);
+        world.step(0);
+        assertTrue(button.isPressed(), "thief holds the button");
+
+        teleport(world, KeyHandler.DOWN, KeyHandler.DOWN, 0, KeyHandler.UP);
+        assertTile(world, thief, 6, 6);
+    }
+
+    @Test
+    void teleportsACharacterStandingOnTheKey() {
+        World world = newWorld();
+        PlayableCharacter thief = character(world, Thief.class);
+        place(world, thief, 13, 7);
+        place(world, character(world, Wizard.class), 13, 6);
+
+        teleport(world, KeyHandler.DOWN, 0, KeyHandler.DOWN);
+        assertTile(world, thief, 13, 8);
+        assertTile(world, world.entityM.keys.get(0), 13, 7);
+    }
+
+    private static World newWorld() {
+        World world = new World(MAP, 1);
+        world.entityM.enemiesFrozen = true;
+        return world;
+    }
+
+    /** Opens teleport mode, moves the cursor, picks (at the 0), moves again and drops. */
+    private static void teleport(World world, int... cursorMoves) {
+        world.player.setActiveIndex(world.entityM.characters.indexOf(character(world, Wizard.class)));
+        world.step(KeyHandler.TELEPORT);
+        boolean picked = false;
+        for (int move : cursorMoves) {
+            if (move == 0) {
+                world.step(KeyHandler.TELEPORT);
+                picked = true;
+            } else {
+                world.step(move);
+            }
+        }
+        if (!picked)
+            throw new IllegalArgumentException("no pick in the cursor moves");
+        world.step(KeyHandler.TELEPORT);
+        world.step(0);
+    }
+
+    private static PlayableCharacter character(World world, Class<? extends PlayableCharacter> type) {
+        for (PlayableCharacter pc : world.entityM.characters) {
+            if (type.isInstance(pc))
+                return pc;
+        }
+        throw new IllegalStateException("map has no " + type.getSimpleName());
+    }
+
+    private static void place(World world, Entity e, int col, int row) {
+        e.x = e.targetX = col * world.tileSize;
+        e.y = e.targetY = row * world.tileSize;
+        e.movingToTarget = false;
+        e.storePrevious();
+        world.entityM.grid.update(e);
+    }
+
+    private static void assertTile(World world, Entity e, int col, int row) {
+        assertEquals(col, e.x / world.tileSize, e.getClass().getSimpleName() + " column");
+        assertEquals(row, e.y / world.tileSize, e.getClass().getSimpleName() + " row");
+    }
+}
@@ -0,0 +1,82 @@
+package main;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class HistogramTest {
+    // indexes into take()
+    static final int COUNT = 0, MEAN = 1, P50 = 2, P90 = 3, P99 = 4, MAX = 5;
+
+    @Test
+    void smallValuesAreExact() {
+        for (long v = 0; v < 16; v++) {
+            Histogram h = new Histogram();
+            h.record(v);
+            long[] stats = h.take();
+            assertEquals(v, stats[P50], "p50 of " + v);
+            assertEquals(v, stats[MAX]);
+        }
+    }
+
+    @Test
+    void bucketEdges() {
+        // 16..31 is split into 8 buckets of width 2: 16-17, 18-19, ...
+        assertEquals(17, p50Of(16));
+        assertEquals(17, p50Of(17));
+        assertEquals(19, p50Of(18));
+        // 1024..2047 in buckets of 128: 1024-1151, 1152-1279
+        assertEquals(1151, p50Of(1024));
+        assertEquals(1279, p50Of(1152));
+    }
+
+    @Test
+    void reportedValueIsWithinAnEighthOfTheTruth() {
+        for (long v = 1; v < 1L << 40; v = v * 3 + 1) {
+            Histogram h = new Histogram();
+            h.record(v);
+            h.record(v * 2); // so the max doesn't cap the p50 bucket bound
+            long p50 = h.take()[P50];
+            assertTrue(p50 >= v && p50 <= v + v / 8, v + " reported as " + p50);
+        }
+    }
+
+    @Test
+    void percentilesOfAUniformSpread() {
+        Histogram h = new Histogram();
+        for (long v = 1; v <= 100; v++)
+            h.record(v);
+        long[] stats = h.take();
+        assertEquals(100, stats[COUNT]);
+        assertEquals(50, stats[MEAN]); // 5050 / 100, truncated
+        assertEquals(51, stats[P50]); // 50 is in bucket 48-51
+        assertEquals(95, stats[P90]); // 90 is in bucket 88-95
+        assertEquals(100, stats[P99]); // bucket 96-103, capped at the max
+        assertEquals(100, stats[MAX]);
+    }
+
+    @Test
+    void takeResetsAndNegativeValuesCountAsZero() {
+        Histogram h = new Histogram();
+        h.record(-5);
+        assertArrayEquals(new long[] { 1, 0, 0, 0, 0, 0 }, h.take());
+        assertArrayEquals(new long[Histogram.STATS.length], h.take());
+    }
+
+    @Test
+    void largestValuesFit() {
+        Histogram h = new Histogram();
+        h.record(Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, h.take()[P99]);
+    }
+
+    private static long p50Of(long value) {
+        Histogram h = new Histogram();
+        h.record(value);
+        h.record(value);
+        h.record(Long.MAX_VALUE >> 1); // keeps the max from capping the bucket bound
+        return h.take()[P50];
+    }
+}
@@ -0,0 +1,87 @@
+package main;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class InputLogTest {
+    static final String MAP = "/Resource/maps/map05.txt";
+
+    @BeforeAll
+    static void quiet() {
+        GameLog.setLevel(GameLog.WARN);
+    }
+
+    @Test
+    void roundTripKeepsHeaderMasksAndChecksum() throws IOException {
+        InputLog log = new InputLog(MAP, -42L);
+        for (int t = 0; t < 300; t++)
+            log.add(KeyHandler.RIGHT);
+        log.add(KeyHandler.RIGHT | KeyHandler.SWITCH);
+        for (int t = 0; t < 5; t++)
+            log.add(0);
+        log.add(KeyHandler.ALL_KEYS); // every bit at once
+        log.finalChecksum = 0x0123456789abcdefL;
+
+        byte[] bytes = log.toBytes();
+        InputLog read = InputLog.read(new ByteArrayInputStream(bytes));
+        assertEquals(MAP, read.mapPath);
+        assertEquals(-42L, read.seed);
+        assertEquals(307, read.ticks());
+        assertEquals(0x0123456789abcdefL, read.finalChecksum);
+        assertArrayEquals(bytes, read.toBytes());
+    }
+
+    @Test
+    void heldKeysAreRunLengthEncoded() throws IOException {
+        InputLog log = new InputLog(MAP, 1);
+        for (int t = 0; t < 100_000; t++)
+            log.add(KeyHandler.UP | KeyHandler.LEFT);
+        // header + one run (two varints) + terminator + tick count + checksum
+        assertTrue(log.toBytes().length < 60, "100000 identical ticks took " + log.toBytes().length + " bytes");
+    }
+
+    @Test
+    void restartsAreNeverMergedIntoARun() throws IOException {
+        InputLog log = new InputLog(MAP, 7);
+        log.add(KeyHandler.DOWN);
+        log.add(KeyHandler.DOWN | InputLog.RESTART);
+        log.add(KeyHandler.DOWN | InputLog.RESTART); // a second restart right after the first
+        log.add(KeyHandler.DOWN);
+
+        InputLog read = InputLog.read(new ByteArrayInputStream(log.toBytes()));
+        assertEquals(4, read.ticks());
+        assertEquals(2, read.replay().restartCount);
+    }
+
+    @Test
+    void replayReproducesARecordedRun() {
+        World recorded = new World(MAP, 99);
+        InputLog log = new InputLog(MAP, 99);
+        int[] script = { KeyHandler.RIGHT, KeyHandler.DOWN, KeyHandler.SWITCH, KeyHandler.LEFT, KeyHandler.UP };
+        for (int t = 0; t < 2000; t++) {
+            int mask = script[(t / 40) % script.length];
+            log.add(mask);
+            recorded.step(mask);
+        }
+        log.finalChecksum = recorded.checksum();
+        assertEquals(log.finalChecksum, log.replay().checksum());
+    }
+
+    @Test
+    void rejectsTruncatedLogs() throws IOException {
+        InputLog log = new InputLog(MAP, 3);
+        log.add(KeyHandler.UP);
+        byte[] bytes = log.toBytes();
+        byte[] cut = Arrays.copyOf(bytes, bytes.length - 10);
+        assertThrows(IOException.class, () -> InputLog.read(new ByteArrayInputStream(cut)));
+    }
+}
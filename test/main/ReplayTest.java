@@ -0,0 +1,46 @@
+package main;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+
+/**
+ * Replays the committed input logs (one per shipped map, written by
+ * main.ReplayFixtures) and checks each ends in its recorded final state. A
+ * mismatch means a change altered the game rules; if that was intended,
+ * regenerate the logs.
+ */
+class ReplayTest {
+    static final Path DIR = Path.of("test/replays");
+
+    @BeforeAll
+    static void quiet() {
+        GameLog.setLevel(GameLog.WARN);
+    }
+
+    @TestFactory
+    Stream<DynamicTest> everyMapReplaysToItsRecordedState() throws IOException {
+        List<Path> logs;
+        try (Stream<Path> files = Files.list(DIR)) {
+            logs = files.filter(f -> f.toString().endsWith(InputLog.EXTENSION)).sorted().toList();
+        }
+        for (int n = 1; ReplayFixtures.class.getResource(ReplayFixtures.mapPath(n)) != null; n++)
+            assertTrue(Files.exists(DIR.resolve(String.format("map%02d", n) + InputLog.EXTENSION)),
+                    "no input log for map " + n);
+
+        return logs.stream().map(file -> DynamicTest.dynamicTest(file.getFileName().toString(), () -> {
+            InputLog log = InputLog.read(file);
+            World world = log.replay();
+            assertEquals(log.finalChecksum, world.checksum(), "final state of " + log.mapPath);
+        }));
+    }
+}
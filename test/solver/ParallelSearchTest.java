@@ -0,0 +1,45 @@
+package solver;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import main.GameLog;
+
+/** The sequential and parallel searches must find equally short, replayable solutions. */
+class ParallelSearchTest {
+    static final String MAP = "/Resource/maps/map03.txt";
+    static ForkJoinPool pool;
+
+    @BeforeAll
+    static void setUp() {
+        GameLog.setLevel(GameLog.WARN);
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void sequentialAndParallelAgreeOnMap03() {
+        Solver sequential = new Solver(MAP, Solver.DEFAULT_MAX_STATES);
+        Solver.Result s = sequential.solve(null);
+        Solver parallel = new Solver(MAP, Solver.DEFAULT_MAX_STATES);
+        Solver.Result p = parallel.solve(pool);
+
+        assertEquals(Solver.SOLVED, s.outcome);
+        assertEquals(Solver.SOLVED, p.outcome);
+        assertTrue(s.shortest && p.shortest);
+        assertEquals(s.moves.length, p.moves.length, "both find a shortest solution");
+        assertNotNull(sequential.replay(s.moves), "sequential solution replays to a win");
+        assertNotNull(parallel.replay(p.moves), "parallel solution replays to a win");
+    }
+}
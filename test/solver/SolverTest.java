@@ -0,0 +1,52 @@
+package solver;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import main.GameLog;
+
+/** Solutions must be found, replay to a win and come out the same every run. */
+class SolverTest {
+    static final String MAP = "/Resource/maps/map03.txt";
+
+    @BeforeAll
+    static void quiet() {
+        GameLog.setLevel(GameLog.WARN);
+    }
+
+    @Test
+    void solvesMap03() {
+        Solver solver = new Solver(MAP, Solver.DEFAULT_MAX_STATES);
+        Solver.Result r = solver.solve(null);
+
+        assertEquals(Solver.SOLVED, r.outcome);
+        assertTrue(r.shortest);
+        assertNotNull(solver.replay(r.moves), "solution replays to a win");
+        assertTrue(solver.winsWithMovingEnemies(r.moves), "the enemy on map03 does not get in the way");
+    }
+
+    @Test
+    void actionSearchTakesOverAtTheStateLimit() {
+        Solver solver = new Solver(MAP, 1000); // the full search needs a few thousand
+        Solver.Result r = solver.solve(null);
+
+        assertEquals(Solver.SOLVED, r.outcome);
+        assertFalse(r.shortest);
+        assertNotNull(solver.replay(r.moves), "expanded walks and actions replay to a win");
+        assertTrue(r.moves.length >= new Solver(MAP, Solver.DEFAULT_MAX_STATES).solve(null).moves.length);
+    }
+
+    @Test
+    void searchIsDeterministic() {
+        Solver.Result a = new Solver(MAP, Solver.DEFAULT_MAX_STATES).solve(null);
+        Solver.Result b = new Solver(MAP, Solver.DEFAULT_MAX_STATES).solve(null);
+        assertArrayEquals(a.moves, b.moves);
+        assertEquals(a.states, b.states);
+    }
+}
@@ -0,0 +1,112 @@
+package tile;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+
+import main.GameLog;
+import main.World;
+
+/** Text map -> MapCompiler -> TileManager gives the same map as loading the text. */
+class MapCompilerTest {
+    static final Path MAPS = Path.of("Resource/maps");
+
+    @BeforeAll
+    static void quiet() {
+        GameLog.setLevel(GameLog.WARN);
+    }
+
+    static Stream<Integer> maps() {
+        return IntStream.rangeClosed(1, 99).boxed()
+                .filter(n -> Files.exists(MAPS.resolve(String.format("map%02d.txt", n))));
+    }
+
+    @TestFactory
+    Stream<DynamicTest> compiledMapLoadsLikeTheText() {
+        return maps().map(n -> DynamicTest.dynamicTest("map" + n, () -> {
+            String name = String.format("map%02d", n);
+            World world = new World("/Resource/maps/" + name + ".txt", 1);
+            TileManager tm = world.tileM;
+
+            clearSpawns(tm);
+            tm.loadTextMap("/Resource/maps/" + name + ".txt");
+            Loaded text = new Loaded(world);
+
+            clearSpawns(tm);
+            tm.loadBinaryMap(MapCompiler.compile(Files.readAllLines(MAPS.resolve(name + ".txt"))));
+            Loaded binary = new Loaded(world);
+
+            text.assertSame(binary);
+        }));
+    }
+
+    /** The committed .bin files must be what the compiler writes today (same as MapCompiler --check). */
+    @TestFactory
+    Stream<DynamicTest> committedBinariesAreUpToDate() {
+        return maps().map(n -> DynamicTest.dynamicTest("map" + n, () -> {
+            String name = String.format("map%02d", n);
+            byte[] compiled = MapCompiler.compile(Files.readAllLines(MAPS.resolve(name + ".txt")));
+            assertArrayEquals(compiled, Files.readAllBytes(MAPS.resolve(name + MapCompiler.EXTENSION)),
+                    name + MapCompiler.EXTENSION + " is stale; rerun java tile.MapCompiler");
+        }));
+    }
+
+    private static void clearSpawns(TileManager tm) {
+        tm.playableCharacterPositions.clear();
+        tm.boxPositions.clear();
+        tm.enemyPositions.clear();
+        tm.hasMapSeed = false;
+    }
+
+    /** Copy of everything a map load produces. */
+    private static final class Loaded {
+        final int cols, rows;
+        final int[][] tiles, codes;
+        final List<int[]> characters, boxes, enemies;
+        final boolean hasSeed;
+        final long seed;
+
+        Loaded(World world) {
+            TileManager tm = world.tileM;
+            cols = world.maxWorldCol;
+            rows = world.maxWorldRow;
+            tiles = copy(tm.mapTileNum);
+            codes = copy(tm.mapCodes);
+            characters = new ArrayList<>(tm.playableCharacterPositions);
+            boxes = new ArrayList<>(tm.boxPositions);
+            enemies = new ArrayList<>(tm.enemyPositions);
+            hasSeed = tm.hasMapSeed;
+            seed = tm.mapSeed;
+        }
+
+        void assertSame(Loaded other) {
+            assertEquals(cols, other.cols);
+            assertEquals(rows, other.rows);
+            assertArrayEquals(tiles, other.tiles);
+            assertArrayEquals(codes, other.codes);
+            assertArrayEquals(characters.toArray(), other.characters.toArray());
+            assertArrayEquals(boxes.toArray(), other.boxes.toArray());
+            assertArrayEquals(enemies.toArray(), other.enemies.toArray());
+            assertEquals(hasSeed, other.hasSeed);
+            if (hasSeed)
+                assertEquals(seed, other.seed);
+        }
+
+        private static int[][] copy(int[][] grid) {
+            int[][] copy = new int[grid.length][];
+            for (int i = 0; i < grid.length; i++)
+                copy[i] = grid[i].clone();
+            return copy;
+        }
+    }
+}
@@ -3,20 +3,22 @@ package tile;
 import entity.Button;
 import entity.Spike;
 import entity.Entity;
-import main.GamePanel;
-import java.awt.Graphics2D;
+import entity.EntityManager;
+import main.RenderFrame;
+import main.World;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public class HazardManager {
-    private GamePanel gp;
+    private World world;
 
     // Optional: mapping buttonID → list of spikeIDs (for linking)
     private Map<Integer, ArrayList<Integer>> linkMap = new HashMap<>();
 
-    public HazardManager(GamePanel gp) {
-        this.gp = gp;
+    public HazardManager(World world) {
+        this.world = world;
     }
 
     // Linking button
@@ -27,11 +29,12 @@ public class HazardManager {
     }
 
     // Check button press and toggle
-    public void update(ArrayList<Entity> allEntities) {
-        for (Button b : gp.entityM.buttons) {
-            boolean pressed = allEntities.stream()
-                    .filter(e -> !(e instanceof Button) && e.active)
-                    .anyMatch(e -> e.getWorldHitbox().intersects(b.getWorldHitbox()));
+    public void update() {
+        EntityManager entityM = world.entityM;
+        for (Button b : entityM.buttons) {
+            boolean pressed = isPressedBy(b, entityM.characters)
+                    || isPressedBy(b, entityM.worldEntities)
+                    || isPressedBy(b, entityM.enemies);
 
             if (b.isToggleType()) {
                 // toggle-type button changes state only when pressed down, not held
@@ -54,12 +57,21 @@ public class HazardManager {
         }
     }
 
+    private boolean isPressedBy(Button b, List<? extends Entity> entities) {
+        for (int i = 0; i < entities.size(); i++) {
+            Entity e = entities.get(i);
+            if (e.active && !(e instanceof Button) && e.overlaps(b))
+                return true;
+        }
+        return false;
+    }
+
     private void setLinkedSpikesActive(int buttonId, boolean activeState) {
         ArrayList<Integer> linkedSpikes = linkMap.get(buttonId);
         if (linkedSpikes == null)
             return;
 
-        for (Spike s : gp.entityM.spikes) {
+        for (Spike s : world.entityM.spikes) {
             if (linkedSpikes.contains(s.getId())) {
                 s.setActive(activeState);
             }
@@ -67,10 +79,10 @@ public class HazardManager {
     }
 
     /** Draws all hazard-type entities (optional if EntityManager handles it) */
-    public void draw(Graphics2D g2) {
-        for (Spike s : gp.entityM.spikes)
-            s.draw(g2, gp.tileSize);
-        for (Button b : gp.entityM.buttons)
-            b.draw(g2, gp.tileSize);
+    public void draw(RenderFrame frame) {
+        for (Spike s : world.entityM.spikes)
+            s.draw(frame, world.tileSize);
+        for (Button b : world.entityM.buttons)
+            b.draw(frame, world.tileSize);
     }
 }
@@ -0,0 +1,93 @@
+package tile;
+
+/**
+ * Classification of raw map codes, precomputed into one lookup table so game
+ * code can test a cell with an array read instead of parsing strings.
+ *
+ * Each table entry packs: flag bits (low byte), spawn kind (next byte) and the
+ * link id / spawn type (third byte).
+ */
+public final class MapCode {
+    // ===== Flag bits =====
+    public static final int WALKABLE = 1; // may be stepped on even if the tile collides
+    public static final int HAZARD = 1 << 1; // spike (70-79)
+    public static final int BUTTON = 1 << 2; // button (60-69)
+    public static final int TOGGLE = 1 << 3; // toggle-type button (65-69)
+    public static final int KEY = 1 << 4; // key spawn marker (8)
+    public static final int CHEST = 1 << 5; // chest spawn marker (9)
+
+    // ===== Spawn kinds (spawn table entries, see MapCompiler) =====
+    public static final int SPAWN_NONE = -1;
+    public static final int SPAWN_CHARACTER = 0;
+    public static final int SPAWN_BOX = 1;
+    public static final int SPAWN_ENEMY = 2;
+
+    public static final int NONE = -1; // cell that was never loaded
+
+    private static final int[] TABLE = new int[256];
+
+    static {
+        for (int code = 0; code < TABLE.length; code++) {
+            int flags = 0;
+            int spawn = SPAWN_NONE;
+            int link = 0;
+
+            if (code >= 60 && code <= 69) { // Button (60-64 hold, 65-69 toggle)
+                flags |= WALKABLE | BUTTON | (code >= 65 ? TOGGLE : 0);
+                link = code - 60;
+            } else if (code >= 70 && code <= 79) { // Spike
+                flags |= WALKABLE | HAZARD;
+                link = code - 70;
+            } else if (code >= 100 && code <= 114) { // reserved hazard codes
+                flags |= WALKABLE;
+            } else if (code == 8) {
+                flags |= KEY;
+            } else if (code == 9) {
+                flags |= CHEST;
+            } else if (code >= 90 && code <= 92) { // Character spawn (90-92)
+                spawn = SPAWN_CHARACTER;
+                link = code - 90;
+            } else if (code >= 50 && code <= 59) { // 50-59 reserved for boxes
+                spawn = SPAWN_BOX;
+                link = code - 50;
+            } else if (code == 80 || code == 81) { // 0 = BloodshotEye (patrol), 1 = OcularWatcher
+                spawn = SPAWN_ENEMY;
+                link = code - 80;
+            }
+            TABLE[code] = flags | ((spawn + 1) << 8) | (link << 16);
+        }
+    }
+
+    private MapCode() {
+    }
+
+    private static int entry(int code) {
+        return (code >= 0 && code < TABLE.length) ? TABLE[code] : 0;
+    }
+
+    public static int flags(int code) {
+        return entry(code) & 0xFF;
+    }
+
+    public static boolean is(int code, int flag) {
+        return (entry(code) & flag) != 0;
+    }
+
+    /** Spawn table kind for a code, or SPAWN_NONE. */
+    public static int spawnKind(int code) {
+        return ((entry(code) >> 8) & 0xFF) - 1;
+    }
+
+    /** Button/spike link id, or the spawn type (character role, box sprite, enemy kind). */
+    public static int linkId(int code) {
+        return (entry(code) >> 16) & 0xFF;
+    }
+
+    /** Tile drawn under a raw map code: spawns and markers sit on grass. */
+    public static int tileNum(int code) {
+        if (spawnKind(code) != SPAWN_NONE || (flags(code) & (BUTTON | HAZARD | KEY | CHEST)) != 0)
+            return 0;
+        // Mark as itself
+        return code;
+    }
+}
@@ -0,0 +1,138 @@
+package tile;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Compiles text maps (Resource/maps/*.txt) into the binary format that
+ * TileManager loads in preference to the text file.
+ *
+ * Layout (big-endian):
+ * int magic "A3MP", short version, short cols, short rows,
+ * byte hasSeed, long seed (version 2+),
+ * short[rows * cols] raw map codes (row-major),
+ * short spawnCount, then per spawn: byte kind, short col, short row, byte type.
+ *
+ * A text map may start with a "seed <n>" line that fixes the level's random seed.
+ * Rerun the compiler after editing a text map: the game warns about, and skips,
+ * a .bin older than its .txt, and --check fails (for CI) when a committed .bin
+ * differs from what the compiler would write.
+ *
+ * Usage: java tile.MapCompiler [--check] [map.txt | directory]... (default Resource/maps)
+ */
+public class MapCompiler {
+    public static final int MAGIC = 0x41334D50; // "A3MP"
+    public static final int VERSION = 2;
+    public static final String EXTENSION = ".bin";
+
+    public static void main(String[] args) throws IOException {
+        List<Path> inputs = new ArrayList<>();
+        boolean check = args.length > 0 && args[0].equals("--check");
+        if (check)
+            args = Arrays.copyOfRange(args, 1, args.length);
+        if (args.length == 0)
+            args = new String[] { "Resource/maps" };
+        for (String arg : args) {
+            Path p = Paths.get(arg);
+            if (Files.isDirectory(p)) {
+                try (Stream<Path> files = Files.list(p)) {
+                    files.filter(f -> f.toString().endsWith(".txt")).sorted().forEach(inputs::add);
+                }
+            } else {
+                inputs.add(p);
+            }
+        }
+
+        int stale = 0;
+        for (Path txt : inputs) {
+            String name = txt.getFileName().toString();
+            Path bin = txt.resolveSibling(name.substring(0, name.length() - 4) + EXTENSION);
+            byte[] data = compile(Files.readAllLines(txt));
+            if (check) {
+                boolean current = Files.exists(bin) && Arrays.equals(Files.readAllBytes(bin), data);
+                System.out.println((current ? "up to date  " : "OUT OF DATE ") + bin);
+                if (!current)
+                    stale++;
+                continue;
+            }
+            Files.write(bin, data);
+            System.out.println(txt + " -> " + bin + " (" + data.length + " bytes)");
+        }
+        if (stale > 0) {
+            System.out.println(stale + " compiled map(s) out of date; rerun java tile.MapCompiler");
+            System.exit(1);
+        }
+    }
+
+    /** Converts the lines of a text map into the binary format. */
+    public static byte[] compile(List<String> lines) throws IOException {
+        // parse the whole grid first so the header can carry the dimensions
+        List<int[]> grid = new ArrayList<>();
+        int cols = 0;
+        Long seed = null;
+        for (String line : lines) {
+            if (line.isBlank())
+                continue;
+            if (isSeedLine(line)) {
+                seed = parseSeed(line);
+                continue;
+            }
+            String[] numbers = line.trim().split("\\s+");
+            int[] row = new int[numbers.length];
+            for (int col = 0; col < numbers.length; col++)
+                row[col] = Integer.parseInt(numbers[col]);
+            grid.add(row);
+            cols = Math.max(cols, row.length);
+        }
+        int rows = grid.size();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeShort(cols);
+        out.writeShort(rows);
+        out.writeByte(seed != null ? 1 : 0);
+        out.writeLong(seed != null ? seed : 0L);
+
+        // tiles, and the spawn table in the same row-major order as the text loader
+        List<int[]> spawns = new ArrayList<>();
+        for (int row = 0; row < rows; row++) {
+            int[] cells = grid.get(row);
+            for (int col = 0; col < cols; col++) {
+                int num = col < cells.length ? cells[col] : 0; // short rows are padded with grass
+                out.writeShort(num);
+                int kind = MapCode.spawnKind(num);
+                if (kind != MapCode.SPAWN_NONE)
+                    spawns.add(new int[] { kind, col, row, MapCode.linkId(num) });
+            }
+        }
+
+        out.writeShort(spawns.size());
+        for (int[] s : spawns) {
+            out.writeByte(s[0]);
+            out.writeShort(s[1]);
+            out.writeShort(s[2]);
+            out.writeByte(s[3]);
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /** True for the optional "seed <n>" header line of a text map. */
+    public static boolean isSeedLine(String line) {
+        return line.trim().startsWith("seed");
+    }
+
+    public static long parseSeed(String line) {
+        return Long.parseLong(line.trim().substring(4).trim());
+    }
+}
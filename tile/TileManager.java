@@ -2,19 +2,33 @@ package tile;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
 import java.io.*;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
-import javax.imageio.ImageIO;
-import main.GamePanel;
+import main.AssetCache;
+import main.GameLog;
+import main.World;
 
 public class TileManager {
-    GamePanel gp;
+    World world;
     public ArrayList<Tile> tile = new ArrayList<>();
     public int[][] mapTileNum;
 
-    // map raw codes (as strings) so other managers can read special codes (hazards,
-    // etc.)
-    public String[][] mapCodes;
+    // raw map codes so other managers can read special codes (hazards, etc.);
+    // classify them with MapCode, MapCode.NONE = cell not in the map file
+    public int[][] mapCodes;
+
+    // random seed fixed by the map file ("seed <n>" line or compiled header), if any
+    public boolean hasMapSeed;
+    public long mapSeed;
+
+    // line-of-sight lookups, rebuilt whenever a map is loaded
+    public VisibilityTable visibility;
 
     // Sprite Bank
     public BufferedImage[] boxSprites;
@@ -25,25 +39,31 @@ public class TileManager {
     public ArrayList<int[]> playableCharacterPositions = new ArrayList<>();
     public ArrayList<int[]> enemyPositions = new ArrayList<>();
 
-    public TileManager(GamePanel gp) {
-        this.gp = gp;
+    // Pre-rendered background: tiles never change during a level, so they are
+    // composited into CHUNK x CHUNK tile blocks and each visible block is blitted
+    // with a single drawImage per frame. Only blocks near the viewport are kept.
+    private static final int CHUNK = 16;
+    private LayerChunk[][] chunks = new LayerChunk[0][0];
+    private final ArrayList<LayerChunk> residentChunks = new ArrayList<>();
+
+    public TileManager(World world) {
+        this.world = world;
 
-        // Provide default values if gp is null (e.g., menu panels)
-        int cols = (gp != null) ? gp.maxScreenCol : 16;
-        int rows = (gp != null) ? gp.maxScreenRow : 12;
-        int tileSize = (gp != null) ? gp.tileSize : 48;
+        // Provide default values if world is null (e.g., menu panels)
+        int cols = (world != null) ? world.maxWorldCol : 16;
+        int rows = (world != null) ? world.maxWorldRow : 12;
+        int tileSize = (world != null) ? world.tileSize : 48;
 
-        mapTileNum = new int[cols][rows];
-        mapCodes = new String[cols][rows];
+        allocateMap(cols, rows);
 
         loadTileImages();
         loadBoxSprites();
         loadPlayableSprites();
         loadEnemyPlaceholder(tileSize);
 
-        // Only load map if gp != null (in-game context)
-        if (gp != null && gp.currentMapPath != null) {
-            loadMap(gp.currentMapPath);
+        // Only load map if world != null (in-game context)
+        if (world != null && world.currentMapPath != null) {
+            loadMap(world.currentMapPath);
             validateMap();
         }
     }
@@ -53,34 +73,22 @@ public class TileManager {
         String[] files = { "box1.png", "box2.png", "box3.png", "box4.png" };
         boxSprites = new BufferedImage[files.length];
         for (int i = 0; i < files.length; i++) {
-            try (InputStream is = getClass().getResourceAsStream("/Resource/tiles/" + files[i])) {
-                if (is == null) {
-                    System.err.println("Missing box sprites: " + files[i]);
-                    continue;
-                }
-                boxSprites[i] = ImageIO.read(is);
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
+            boxSprites[i] = AssetCache.image("/Resource/tiles/" + files[i], tileSize());
+            if (boxSprites[i] == null)
+                GameLog.warn("Missing box sprites: {}", files[i]);
         }
     }
 
     private void loadPlayableSprites() {
+        // original-size frames (the character screen scales them itself); decoded
+        // once and shared with PlayableCharacter through the asset cache
         String[] roles = { "knight", "thief", "wizard" };
+        String[] frames = { "_L_1", "_L_2", "_L_3", "_R_1", "_R_2", "_R_3" };
         for (String role : roles) {
-            BufferedImage[] sprites = new BufferedImage[6];
-            try {
-                String base = "/Resource/playableCharacter/" + role + "/";
-                sprites[0] = ImageIO.read(getClass().getResourceAsStream(base + role + "_L_1.png"));
-                sprites[1] = ImageIO.read(getClass().getResourceAsStream(base + role + "_L_2.png"));
-                sprites[2] = ImageIO.read(getClass().getResourceAsStream(base + role + "_L_3.png"));
-                sprites[3] = ImageIO.read(getClass().getResourceAsStream(base + role + "_R_1.png"));
-                sprites[4] = ImageIO.read(getClass().getResourceAsStream(base + role + "_R_2.png"));
-                sprites[5] = ImageIO.read(getClass().getResourceAsStream(base + role + "_R_3.png"));
-            } catch (IOException e) {
-                System.err.println("Error loading sprites for " + role);
-                e.printStackTrace();
-            }
+            BufferedImage[] sprites = new BufferedImage[frames.length];
+            String base = "/Resource/playableCharacter/" + role + "/" + role;
+            for (int i = 0; i < frames.length; i++)
+                sprites[i] = AssetCache.image(base + frames[i] + ".png");
             playableSprites.put(role, sprites);
         }
     }
@@ -124,18 +132,19 @@ public class TileManager {
     private void setup(int index, String imagePath, boolean collision) {
         while (tile.size() <= index)
             tile.add(new Tile());
-        try (InputStream is = getClass().getResourceAsStream(imagePath)) {
-            if (is == null) {
-                System.err.println("⚠️ Missing tile: " + imagePath);
-                return;
-            }
-            Tile t = new Tile();
-            t.image = ImageIO.read(is);
-            t.collision = collision;
-            tile.set(index, t);
-        } catch (Exception e) {
-            e.printStackTrace();
+        BufferedImage image = AssetCache.image(imagePath, tileSize());
+        if (image == null) {
+            GameLog.warn("⚠️ Missing tile: {}", imagePath);
+            return;
         }
+        Tile t = new Tile();
+        t.image = image;
+        t.collision = collision;
+        tile.set(index, t);
+    }
+
+    private int tileSize() {
+        return (world != null) ? world.tileSize : 48;
     }
 
     // Clear old data + Reload map
@@ -144,90 +153,195 @@ public class TileManager {
         loadMap(filePath);
     }
 
+    /** Drops the cached background; visible chunks are rebuilt on the next draw. */
+    public void invalidateLayer() {
+        for (LayerChunk chunk : residentChunks)
+            chunk.release();
+        residentChunks.clear();
+        int cols = mapTileNum.length;
+        int rows = cols > 0 ? mapTileNum[0].length : 0;
+        chunks = new LayerChunk[(cols + CHUNK - 1) / CHUNK][(rows + CHUNK - 1) / CHUNK];
+    }
+
     private void clearMapData() {
         boxPositions.clear();
         playableCharacterPositions.clear();
         enemyPositions.clear();
-        for (int c = 0; c < gp.maxScreenCol; c++) {
-            for (int r = 0; r < gp.maxScreenRow; r++) {
-                mapTileNum[c][r] = 0;
-                mapCodes[c][r] = null;
-            }
+        for (int c = 0; c < mapTileNum.length; c++) {
+            Arrays.fill(mapTileNum[c], 0);
+            Arrays.fill(mapCodes[c], MapCode.NONE);
         }
     }
 
-    /** Read tile and object placement from map file. */
+    /** Sizes the map arrays (and the world bounds) to the map being loaded. */
+    private void allocateMap(int cols, int rows) {
+        if (mapTileNum == null || mapTileNum.length != cols || mapTileNum[0].length != rows) {
+            mapTileNum = new int[cols][rows];
+            mapCodes = new int[cols][rows];
+        }
+        for (int c = 0; c < cols; c++) {
+            Arrays.fill(mapTileNum[c], 0);
+            Arrays.fill(mapCodes[c], MapCode.NONE);
+        }
+        if (world != null) {
+            world.maxWorldCol = cols;
+            world.maxWorldRow = rows;
+        }
+    }
+
+    /**
+     * Read tile and object placement from map file. A compiled ".bin" next to a
+     * ".txt" map is preferred (see MapCompiler); the text format is the fallback,
+     * and is also used when the text was edited after the .bin was compiled.
+     */
     public void loadMap(String filePath) {
+        hasMapSeed = false;
+        if (filePath.endsWith(".txt")) {
+            String binPath = filePath.substring(0, filePath.length() - 4) + MapCompiler.EXTENSION;
+            if (compiledMapIsStale(filePath, binPath)) {
+                GameLog.warn("{} is older than its text map; loading the text (rerun tile.MapCompiler)", binPath);
+                loadTextMap(filePath);
+                return;
+            }
+            try (InputStream is = getClass().getResourceAsStream(binPath)) {
+                if (is != null) {
+                    loadBinaryMap(is.readAllBytes());
+                    return;
+                }
+            } catch (Exception e) {
+                GameLog.warn("Bad compiled map {}, falling back to text: {}", binPath, e);
+                clearMapData();
+            }
+        }
+        loadTextMap(filePath);
+    }
+
+    /**
+     * True if both map files are on disk and the text was saved more than a
+     * second after the .bin (the slack absorbs build tools copying both).
+     * Maps inside a jar are never considered stale.
+     */
+    private boolean compiledMapIsStale(String txtPath, String binPath) {
+        URL txt = getClass().getResource(txtPath);
+        URL bin = getClass().getResource(binPath);
+        if (txt == null || bin == null || !"file".equals(txt.getProtocol()) || !"file".equals(bin.getProtocol()))
+            return false;
+        try {
+            long txtTime = Files.getLastModifiedTime(Path.of(txt.toURI())).toMillis();
+            long binTime = Files.getLastModifiedTime(Path.of(bin.toURI())).toMillis();
+            return txtTime > binTime + 1000;
+        } catch (IOException | URISyntaxException e) {
+            return false;
+        }
+    }
+
+    void loadTextMap(String filePath) {
         try (InputStream is = getClass().getResourceAsStream(filePath)) {
             if (is == null) {
-                System.err.println("Map file not found: " + filePath);
+                GameLog.error("Map file not found: {}", filePath);
                 return;
             }
 
+            // parse every row first: the map is as wide as its longest row, and a
+            // bad number stops the load before anything is changed
+            ArrayList<int[]> lines = new ArrayList<>();
+            int cols = 0;
+            boolean seeded = false;
+            long seed = 0;
             java.util.Scanner sc = new java.util.Scanner(is);
-            int row = 0;
-            while (sc.hasNextLine() && row < gp.maxScreenRow) {
+            while (sc.hasNextLine()) {
                 String line = sc.nextLine();
-                String[] numbers = line.split(" ");
-                for (int col = 0; col < numbers.length && col < gp.maxScreenCol; col++) {
-                    int num = Integer.parseInt(numbers[col]);
-                    // store raw code string for hazard manager or other systems
-                    mapCodes[col][row] = numbers[col];
-
-                    // Character spawn (90–92)
-                    if (num >= 90 && num <= 92) {
-                        playableCharacterPositions.add(new int[] { col, row, num - 90 });
-                        mapTileNum[col][row] = 0;
-                    }
-                    // Box spawn
-                    else if (num >= 50 && num <= 59) { // 50-59 reserved for boxes
-                        int typeIndex = num - 50;
-                        boxPositions.add(new int[] { col, row, typeIndex });
-                        mapTileNum[col][row] = 0;
-                    }
-                    // Enemy Spawn
-                    else if (num == 80) {
-                        // 80 → Bloodshot Eye (Patrolling enemy)
-                        enemyPositions.add(new int[] { col, row, 0 }); // 0 = BloodshotEye
-                        mapTileNum[col][row] = 0;
-                    } else if (num == 81) {
-                        // 81 → Ocular Watcher (Stationary enemy)
-                        enemyPositions.add(new int[] { col, row, 1 }); // 1 = OcularWatcher
-                        mapTileNum[col][row] = 0;
-                    }
-                    // Button (60-69)
-                    else if (num >= 60 && num <= 69) {
-                        mapTileNum[col][row] = 0;
-                    }
-                    // Spike(70-79)
-                    else if (num >= 70 & num <= 79) {
-                        mapTileNum[col][row] = 0;
-                    }
-                    // Key and Chest tiles (8, 9) → spawn marker only
-                    else if (num == 8 || num == 9) {
-                        // Keep as normal code for EntityManager to read later
-                        mapTileNum[col][row] = 0; // treat tile as grass
-                    }
-                    // Mark as itself
-                    else {
-                        mapTileNum[col][row] = num;
-                    }
+                if (line.isBlank())
+                    continue;
+                if (MapCompiler.isSeedLine(line)) {
+                    seeded = true;
+                    seed = MapCompiler.parseSeed(line);
+                    continue;
                 }
-                row++;
+                String[] numbers = line.trim().split("\\s+"); // same tokens as MapCompiler
+                int[] row = new int[numbers.length];
+                for (int col = 0; col < numbers.length; col++)
+                    row[col] = Integer.parseInt(numbers[col]);
+                lines.add(row);
+                cols = Math.max(cols, row.length);
             }
+            sc.close();
 
-            System.out.println("Characters: " + playableCharacterPositions.size() +
-                    " Boxes: " + boxPositions.size() +
-                    " Enemies: " + enemyPositions.size());
+            hasMapSeed = seeded;
+            mapSeed = seed;
+            allocateMap(cols, lines.size());
+            for (int row = 0; row < lines.size(); row++) {
+                int[] numbers = lines.get(row);
+                for (int col = 0; col < cols; col++) {
+                    int num = col < numbers.length ? numbers[col] : 0; // short rows are padded with grass
+                    // store raw code for hazard manager or other systems
+                    mapCodes[col][row] = num;
+                    mapTileNum[col][row] = MapCode.tileNum(num);
 
-            sc.close();
+                    int kind = MapCode.spawnKind(num);
+                    if (kind != MapCode.SPAWN_NONE)
+                        addSpawn(kind, col, row, MapCode.linkId(num));
+                }
+            }
+            mapLoaded();
         } catch (Exception e) {
-            e.printStackTrace();
+            GameLog.error("Could not load map {}", filePath, e);
+        }
+    }
+
+    /** Bulk-decodes a compiled map: no per-cell parsing or allocation. */
+    void loadBinaryMap(byte[] data) {
+        ByteBuffer buf = ByteBuffer.wrap(data); // big-endian, as written by DataOutputStream
+        if (buf.getInt() != MapCompiler.MAGIC)
+            throw new IllegalArgumentException("not a compiled map");
+        int version = buf.getShort();
+        if (version < 1 || version > MapCompiler.VERSION)
+            throw new IllegalArgumentException("unsupported map version " + version);
+
+        int cols = Short.toUnsignedInt(buf.getShort());
+        int rows = Short.toUnsignedInt(buf.getShort());
+        if (version >= 2) {
+            hasMapSeed = buf.get() != 0;
+            mapSeed = buf.getLong();
+        }
+        allocateMap(cols, rows);
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                int num = buf.getShort();
+                mapCodes[col][row] = num;
+                mapTileNum[col][row] = MapCode.tileNum(num);
+            }
+        }
+
+        int spawnCount = Short.toUnsignedInt(buf.getShort());
+        for (int i = 0; i < spawnCount; i++) {
+            int kind = buf.get();
+            int col = Short.toUnsignedInt(buf.getShort());
+            int row = Short.toUnsignedInt(buf.getShort());
+            int type = buf.get();
+            addSpawn(kind, col, row, type);
+        }
+        mapLoaded();
+    }
+
+    private void mapLoaded() {
+        invalidateLayer();
+        visibility = new VisibilityTable(this, world.maxWorldCol, world.maxWorldRow);
+
+        GameLog.info("Characters: {} Boxes: {} Enemies: {}", playableCharacterPositions.size(), boxPositions.size(),
+                enemyPositions.size());
+    }
+
+    private void addSpawn(int kind, int col, int row, int type) {
+        switch (kind) {
+            case MapCode.SPAWN_CHARACTER -> playableCharacterPositions.add(new int[] { col, row, type });
+            case MapCode.SPAWN_BOX -> boxPositions.add(new int[] { col, row, type });
+            case MapCode.SPAWN_ENEMY -> enemyPositions.add(new int[] { col, row, type });
         }
     }
 
     public boolean isTileCollidable(int col, int row) {
-        if (col < 0 || col >= gp.maxScreenCol || row < 0 || row >= gp.maxScreenRow)
+        if (col < 0 || col >= mapTileNum.length || row < 0 || row >= mapTileNum[col].length)
             return true;
         int tileNum = mapTileNum[col][row];
         if (tileNum < 0 || tileNum >= tile.size())
@@ -237,29 +351,121 @@ public class TileManager {
     }
 
     private void validateMap() {
-        for (int c = 0; c < gp.maxScreenCol; c++) {
-            for (int r = 0; r < gp.maxScreenRow; r++) {
+        for (int c = 0; c < mapTileNum.length; c++) {
+            for (int r = 0; r < mapTileNum[c].length; r++) {
                 int idx = mapTileNum[c][r];
                 if (idx < 0 || idx >= tile.size()) {
-                    System.err.println(
-                            "TileManager.validateMap: invalid tile index " + idx + " at (" + c + "," + r + ")");
+                    GameLog.warn("TileManager.validateMap: invalid tile index {} at ({},{})", idx, c, r);
                 }
             }
         }
     }
 
-    public void draw(Graphics2D g2) {
-        for (int col = 0; col < gp.maxScreenCol; col++) {
-            for (int row = 0; row < gp.maxScreenRow; row++) {
-                int tileNum = mapTileNum[col][row];
-                if (tileNum < tile.size() && tile.get(tileNum) != null && tile.get(tileNum).image != null) {
-                    g2.drawImage(tile.get(tileNum).image, col * gp.tileSize, row * gp.tileSize, gp.tileSize,
-                            gp.tileSize, null);
+    /**
+     * Draws the part of the map inside the given world-space view rectangle.
+     * Cost depends on the view size, not the map size.
+     */
+    public void draw(Graphics2D g2, int viewX, int viewY, int viewWidth, int viewHeight) {
+        int chunkPx = CHUNK * world.tileSize;
+        int firstX = Math.max(0, Math.floorDiv(viewX, chunkPx));
+        int firstY = Math.max(0, Math.floorDiv(viewY, chunkPx));
+        int lastX = Math.min(chunks.length - 1, Math.floorDiv(viewX + viewWidth - 1, chunkPx));
+        int lastY = chunks.length > 0 ? Math.min(chunks[0].length - 1, Math.floorDiv(viewY + viewHeight - 1, chunkPx)) : -1;
+
+        // forget chunks that scrolled out of view
+        for (int i = residentChunks.size() - 1; i >= 0; i--) {
+            LayerChunk chunk = residentChunks.get(i);
+            if (chunk.cx < firstX || chunk.cx > lastX || chunk.cy < firstY || chunk.cy > lastY) {
+                chunk.release();
+                chunks[chunk.cx][chunk.cy] = null;
+                residentChunks.remove(i);
+            }
+        }
+
+        GraphicsConfiguration gc = g2.getDeviceConfiguration();
+        boolean accelerated = gc != null && gc.getDevice().getType() == GraphicsDevice.TYPE_RASTER_SCREEN;
+        for (int cx = firstX; cx <= lastX; cx++) {
+            for (int cy = firstY; cy <= lastY; cy++) {
+                LayerChunk chunk = chunks[cx][cy];
+                if (chunk == null) {
+                    chunk = chunks[cx][cy] = buildChunk(cx, cy);
+                    residentChunks.add(chunk);
+                }
+                chunk.draw(g2, accelerated ? gc : null, cx * chunkPx, cy * chunkPx);
+            }
+        }
+    }
+
+    /** Composites the tiles of one chunk into a cached image. */
+    private LayerChunk buildChunk(int cx, int cy) {
+        int tileSize = world.tileSize;
+        int firstCol = cx * CHUNK;
+        int firstRow = cy * CHUNK;
+        int cols = Math.min(CHUNK, mapTileNum.length - firstCol);
+        int rows = Math.min(CHUNK, mapTileNum[0].length - firstRow);
+        BufferedImage image = new BufferedImage(cols * tileSize, rows * tileSize, BufferedImage.TYPE_INT_RGB);
+
+        Graphics2D g2 = image.createGraphics();
+        g2.setColor(Color.GRAY); // same as the panel background
+        g2.fillRect(0, 0, image.getWidth(), image.getHeight());
+        for (int col = 0; col < cols; col++) {
+            for (int row = 0; row < rows; row++) {
+                int tileNum = mapTileNum[firstCol + col][firstRow + row];
+                if (tileNum >= 0 && tileNum < tile.size() && tile.get(tileNum) != null
+                        && tile.get(tileNum).image != null) {
+                    g2.drawImage(tile.get(tileNum).image, col * tileSize, row * tileSize, tileSize,
+                            tileSize, null);
                 } else {
                     g2.setColor(java.awt.Color.MAGENTA);
-                    g2.fillRect(col * gp.tileSize, row * gp.tileSize, gp.tileSize, gp.tileSize);
+                    g2.fillRect(col * tileSize, row * tileSize, tileSize, tileSize);
                 }
             }
         }
+        g2.dispose();
+        return new LayerChunk(cx, cy, image);
+    }
+
+    /** One cached block of the background, with an accelerated copy when drawn to a screen. */
+    private static class LayerChunk {
+        final int cx, cy;
+        final BufferedImage image;
+        VolatileImage accelerated;
+        boolean stale = true;
+
+        LayerChunk(int cx, int cy, BufferedImage image) {
+            this.cx = cx;
+            this.cy = cy;
+            this.image = image;
+        }
+
+        void draw(Graphics2D g2, GraphicsConfiguration gc, int x, int y) {
+            if (gc == null) {
+                // printing / offscreen targets: no point in a VolatileImage
+                g2.drawImage(image, x, y, null);
+                return;
+            }
+            do {
+                int status = (accelerated == null) ? VolatileImage.IMAGE_INCOMPATIBLE : accelerated.validate(gc);
+                if (status == VolatileImage.IMAGE_INCOMPATIBLE) {
+                    release();
+                    accelerated = gc.createCompatibleVolatileImage(image.getWidth(), image.getHeight(),
+                            Transparency.OPAQUE);
+                    stale = true;
+                }
+                if (status != VolatileImage.IMAGE_OK || stale) {
+                    Graphics2D vg = accelerated.createGraphics();
+                    vg.drawImage(image, 0, 0, null);
+                    vg.dispose();
+                    stale = false;
+                }
+                g2.drawImage(accelerated, x, y, null);
+            } while (accelerated.contentsLost());
+        }
+
+        void release() {
+            if (accelerated != null)
+                accelerated.flush();
+            accelerated = null;
+        }
     }
 }
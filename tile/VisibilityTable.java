@@ -0,0 +1,88 @@
+package tile;
+
+/**
+ * Line-of-sight table built once per level. Walls never move during a level,
+ * so for every tile the visibility of each tile in a (2*RADIUS+1)^2 window
+ * around it is packed into one long; "can (c0,r0) see (c1,r1)" is then a bit
+ * test. Pairs further apart fall back to tracing the line.
+ *
+ * Visibility follows the original Bresenham rule: the line is blocked by any
+ * collidable tile after the start, including the end tile itself.
+ */
+public class VisibilityTable {
+    public static final int RADIUS = 3; // covers enemy detection range (2 tiles) with rounding
+    private static final int SIZE = 2 * RADIUS + 1; // 7 x 7 = 49 bits
+
+    private final int cols, rows;
+    private final boolean[] solid;
+    private final long[] visible;
+
+    public VisibilityTable(TileManager tm, int cols, int rows) {
+        this.cols = cols;
+        this.rows = rows;
+        this.solid = new boolean[cols * rows];
+        for (int col = 0; col < cols; col++)
+            for (int row = 0; row < rows; row++)
+                solid[row * cols + col] = tm.isTileCollidable(col, row);
+
+        this.visible = new long[cols * rows];
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                long bits = 0;
+                for (int dy = -RADIUS; dy <= RADIUS; dy++)
+                    for (int dx = -RADIUS; dx <= RADIUS; dx++)
+                        if (trace(col, row, col + dx, row + dy))
+                            bits |= 1L << bit(dx, dy);
+                visible[row * cols + col] = bits;
+            }
+        }
+    }
+
+    /** True if nothing collidable lies on the line from (fromCol,fromRow) to (toCol,toRow). */
+    public boolean canSee(int fromCol, int fromRow, int toCol, int toRow) {
+        int dx = toCol - fromCol;
+        int dy = toRow - fromRow;
+        if (fromCol < 0 || fromCol >= cols || fromRow < 0 || fromRow >= rows
+                || Math.abs(dx) > RADIUS || Math.abs(dy) > RADIUS)
+            return trace(fromCol, fromRow, toCol, toRow);
+        return (visible[fromRow * cols + fromCol] & (1L << bit(dx, dy))) != 0;
+    }
+
+    private static int bit(int dx, int dy) {
+        return (dy + RADIUS) * SIZE + (dx + RADIUS);
+    }
+
+    private boolean isSolid(int col, int row) {
+        if (col < 0 || col >= cols || row < 0 || row >= rows)
+            return true;
+        return solid[row * cols + col];
+    }
+
+    // Bresenham walk, same stepping as the old per-tick check
+    private boolean trace(int fromCol, int fromRow, int toCol, int toRow) {
+        int dx = Math.abs(toCol - fromCol);
+        int dy = Math.abs(toRow - fromRow);
+        int sx = (fromCol < toCol) ? 1 : -1;
+        int sy = (fromRow < toRow) ? 1 : -1;
+        int err = dx - dy;
+
+        int cx = fromCol;
+        int cy = fromRow;
+
+        while (true) {
+            if (isSolid(cx, cy) && !(cx == fromCol && cy == fromRow))
+                return false;
+            if (cx == toCol && cy == toRow)
+                return true;
+            int e2 = 2 * err;
+            if (e2 > -dy) {
+                err -= dy;
+                cx += sx;
+            }
+            if (e2 < dx) {
+                err += dx;
+                cy += sy;
+            }
+        }
+    }
+}